@@ -2,6 +2,7 @@ package ameba;
 
 import ameba.container.Container;
 import ameba.core.Application;
+import ameba.core.StartupProfiler;
 import ameba.exception.AmebaException;
 import ameba.i18n.Messages;
 import ameba.util.AmebaInfo;
@@ -11,6 +12,7 @@ import org.glassfish.jersey.internal.inject.InjectionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.List;
 
 /**
@@ -74,6 +76,23 @@ public class Ameba {
      */
     public static void main(String[] args) {
 
+        // dump class data sharing archive
+        List<String> trainArgs = Lists.newArrayList();
+        String dumpArg = null;
+        boolean train = false;
+        for (String arg : args) {
+            if (ClassDataSharing.isDump(arg)) {
+                dumpArg = arg;
+            } else if (ClassDataSharing.TRAIN_ARG.equals(arg)) {
+                train = true;
+            } else {
+                trainArgs.add(arg);
+            }
+        }
+        if (dumpArg != null) {
+            System.exit(ClassDataSharing.dump(dumpArg, trainArgs));
+        }
+
         // register shutdown hook
         Runtime.getRuntime().addShutdownHook(new Thread(Ameba::shutdown, "AmebaShutdownHook"));
 
@@ -105,6 +124,12 @@ public class Ameba {
             System.exit(500);
         }
 
+        // loaded classes are dumped when exit
+        if (train) {
+            ClassDataSharing.train(app, container);
+            System.exit(0);
+        }
+
         try {
             Thread.currentThread().join();
         } catch (InterruptedException e) {
@@ -134,11 +159,20 @@ public class Ameba {
         }
 
         app = application;
-        container = Container.create(app);
+        try {
+            try (StartupProfiler.Phase ignored = StartupProfiler.phase("container.create")) {
+                container = Container.create(app);
+            }
 
-        // run
-        logger.info(Messages.get("info.service.start"));
-        container.start();
+            // run
+            logger.info(Messages.get("info.service.start"));
+            try (StartupProfiler.Phase ignored = StartupProfiler.phase("container.start")) {
+                container.start();
+            }
+        } finally {
+            String report = (String) app.getProperty(Application.STARTUP_REPORT_KEY);
+            StartupProfiler.end(StringUtils.isBlank(report) ? null : new File(report));
+        }
     }
 
     /**
@@ -0,0 +1,184 @@
+package ameba;
+
+import ameba.container.Container;
+import ameba.container.WarmUp;
+import ameba.container.server.Connector;
+import ameba.core.Application;
+import com.google.common.collect.Lists;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+
+/**
+ * <p>Application class data sharing archive.</p>
+ * <p>
+ * <code>--cds[=dir]</code> start a training process with <code>-XX:DumpLoadedClassList</code>, the training
+ * process boot the application, send the <code>warmup.request.*</code> requests over HTTP to a connector
+ * (see {@link ameba.container.WarmUp}) and exit, then dump the loaded classes to an AppCDS archive and
+ * print the JVM flags to use it. Without requests the archive has the boot classes only.
+ * </p>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+final class ClassDataSharing {
+    /**
+     * Constant <code>DUMP_ARG="--cds"</code>
+     */
+    static final String DUMP_ARG = "--cds";
+    /**
+     * Constant <code>TRAIN_ARG="--cds-train"</code>
+     */
+    static final String TRAIN_ARG = "--cds-train";
+    private static final Logger logger = LoggerFactory.getLogger(ClassDataSharing.class);
+    private static final String CLASS_LIST_FILE = "ameba.classlist";
+    private static final String ARCHIVE_FILE = "ameba.jsa";
+
+    private ClassDataSharing() {
+    }
+
+    /**
+     * <p>isDump.</p>
+     *
+     * @param arg an argument
+     * @return true if the argument request to dump the archive
+     */
+    static boolean isDump(String arg) {
+        return arg.equals(DUMP_ARG) || arg.startsWith(DUMP_ARG + "=");
+    }
+
+    /**
+     * train and dump the archive
+     *
+     * @param arg  dump argument, <code>--cds</code> or <code>--cds=dir</code>
+     * @param args arguments pass to the training process
+     * @return exit code
+     */
+    static int dump(String arg, List<String> args) {
+        File dir = new File(arg.length() > DUMP_ARG.length()
+                ? arg.substring(DUMP_ARG.length() + 1) : System.getProperty("user.dir"));
+        File classList = new File(dir, CLASS_LIST_FILE);
+        File archive = new File(dir, ARCHIVE_FILE);
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("can not create directory " + dir);
+            }
+
+            List<String> train = javaCommand();
+            // without the AppCDS flags jdk 8 lists the boot classes only
+            train.addAll(appCdsFlags());
+            train.add("-XX:DumpLoadedClassList=" + classList.getAbsolutePath());
+            train.add(Ameba.class.getName());
+            train.addAll(args);
+            train.add(TRAIN_ARG);
+            logger.info("train loaded classes to {}", classList.getAbsolutePath());
+            int code = run(train);
+            if (code != 0 || !classList.isFile()) {
+                logger.error("train loaded classes failed, exit code {}", code);
+                return code == 0 ? 1 : code;
+            }
+
+            List<String> dump = javaCommand();
+            dump.addAll(appCdsFlags());
+            dump.add("-Xshare:dump");
+            dump.add("-XX:SharedClassListFile=" + classList.getAbsolutePath());
+            dump.add("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+            logger.info("dump class data sharing archive to {}", archive.getAbsolutePath());
+            code = run(dump);
+            if (code != 0 || !archive.isFile()) {
+                logger.error("dump class data sharing archive failed, exit code {}", code);
+                return code == 0 ? 1 : code;
+            }
+        } catch (IOException e) {
+            logger.error("dump class data sharing archive has error", e);
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+
+        List<String> flags = Lists.newArrayList(appCdsFlags());
+        flags.add("-Xshare:auto");
+        flags.add("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+        logger.info("class data sharing archive is ready, start with JVM flags: {}", String.join(" ", flags));
+        return 0;
+    }
+
+    /**
+     * send the warm up requests to a connector of the container in the training process,
+     * so the classes of request path are in the archive
+     *
+     * @param application application
+     * @param container   started container
+     */
+    static void train(Application application, Container container) {
+        Connector connector = null;
+        for (Connector c : container.getConnectors()) {
+            if (c.isAjpEnabled()) continue;
+            if (connector == null || connector.isSecureEnabled() && !c.isSecureEnabled()) {
+                connector = c;
+            }
+        }
+        if (connector == null || connector.getHttpServerBaseUri() == null) {
+            logger.warn("no http connector to train, the archive has the boot classes only");
+            return;
+        }
+        URI uri = connector.getHttpServerBaseUri();
+        String host = uri.getHost();
+        if (host == null || "0.0.0.0".equals(host) || "::".equals(host) || "[::]".equals(host)) {
+            host = "localhost";
+        }
+        try {
+            uri = new URI(uri.getScheme(), null, host, uri.getPort(), StringUtils.appendIfMissing(uri.getPath(), "/"),
+                    null, null);
+        } catch (URISyntaxException e) {
+            logger.warn("illegal connector uri " + uri, e);
+            return;
+        }
+        WarmUp.request(application.getSrcProperties(), uri);
+    }
+
+    private static int run(List<String> command) throws IOException, InterruptedException {
+        logger.debug("run {}", command);
+        return new ProcessBuilder(command).inheritIO().start().waitFor();
+    }
+
+    // java, jvm options except class data sharing options and class path of current process
+    private static List<String> javaCommand() {
+        List<String> command = Lists.newArrayList();
+        command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (option.startsWith("-Xshare:")
+                    || option.startsWith("-XX:SharedArchiveFile=")
+                    || option.startsWith("-XX:SharedClassListFile=")
+                    || option.startsWith("-XX:DumpLoadedClassList=")
+                    || option.startsWith("-agentlib:jdwp")) {
+                continue;
+            }
+            command.add(option);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        return command;
+    }
+
+    // AppCDS is commercial in java 8 and needs to be enabled before java 11
+    private static List<String> appCdsFlags() {
+        String version = System.getProperty("java.specification.version");
+        List<String> flags = Lists.newArrayList();
+        if ("1.8".equals(version)) {
+            flags.add("-XX:+UnlockCommercialFeatures");
+            flags.add("-XX:+UseAppCDS");
+        } else if ("9".equals(version) || "10".equals(version)) {
+            flags.add("-XX:+UseAppCDS");
+        }
+        return flags;
+    }
+}
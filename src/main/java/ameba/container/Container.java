@@ -3,11 +3,13 @@ package ameba.container;
 import ameba.container.event.*;
 import ameba.container.server.Connector;
 import ameba.core.Application;
+import ameba.core.StartupProfiler;
 import ameba.event.SystemEventBus;
 import ameba.i18n.Messages;
 import ameba.util.ClassUtils;
 import org.glassfish.jersey.internal.inject.AbstractBinder;
 import org.glassfish.jersey.internal.inject.InjectionManager;
+import org.glassfish.jersey.server.ApplicationHandler;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
 import org.slf4j.Logger;
@@ -30,6 +32,8 @@ public abstract class Container {
     protected static final Logger logger = LoggerFactory.getLogger(Container.class);
 
     private Application application;
+    private volatile ApplicationHandler applicationHandler;
+    private boolean warmedUp;
 
     /**
      * <p>Constructor for Container.</p>
@@ -39,9 +43,14 @@ public abstract class Container {
     public Container(final Application application) {
         this.application = application;
         prepare();
-        configureHttpServer();
+        try (StartupProfiler.Phase ignored = StartupProfiler.phase("configureHttpServer")) {
+            configureHttpServer();
+        }
         registerBinder(application.getConfig());
-        configureHttpContainer();
+        // ApplicationHandler is created here, features are configured
+        try (StartupProfiler.Phase ignored = StartupProfiler.phase("configureHttpContainer")) {
+            configureHttpContainer();
+        }
     }
 
     /**
@@ -82,12 +91,14 @@ public abstract class Container {
         configuration.registerInstances(new ContainerLifecycleListener() {
             @Override
             public void onStartup(org.glassfish.jersey.server.spi.Container container) {
+                applicationHandler = container.getApplicationHandler();
                 SystemEventBus.publish(new StartupEvent(Container.this, application));
                 logger.trace(Messages.get("info.container.startup"));
             }
 
             @Override
             public void onReload(org.glassfish.jersey.server.spi.Container container) {
+                applicationHandler = container.getApplicationHandler();
                 SystemEventBus.publish(new ReloadedEvent(Container.this, application));
                 logger.trace(Messages.get("info.container.reload"));
             }
@@ -135,6 +146,37 @@ public abstract class Container {
      */
     protected abstract void configureHttpContainer();
 
+    /**
+     * application handler which handle the requests of connectors, used by {@link ameba.container.WarmUp}.
+     * <p>
+     * The container should return the handler of the jersey container created by {@link #configureHttpContainer()},
+     * so the warm up runs before the connectors are opened. By default it's captured when jersey container is started.
+     * </p>
+     *
+     * @return application handler, null if it's not ready
+     * @since 0.1.13
+     */
+    protected ApplicationHandler getApplicationHandler() {
+        return applicationHandler;
+    }
+
+    /**
+     * run {@link ameba.container.WarmUp} once before the connectors are opened
+     */
+    private void warmUp() {
+        if (warmedUp || !WarmUp.isEnabled(application)) return;
+        warmedUp = true;
+        ApplicationHandler handler = getApplicationHandler();
+        if (handler == null) {
+            logger.warn("warm up is skipped, container {} does not provide the application handler before start",
+                    getType());
+            return;
+        }
+        try (StartupProfiler.Phase ignored = StartupProfiler.phase("warmUp")) {
+            WarmUp.run(application, handler);
+        }
+    }
+
     /**
      * <p>getWebSocketContainer.</p>
      *
@@ -150,7 +192,12 @@ public abstract class Container {
     public void start() throws Exception {
         logger.trace(Messages.get("info.container.starting"));
         SystemEventBus.publish(new StartEvent(this, application));
-        doStart();
+        // before connectors are opened, no request is accepted yet
+        warmUp();
+        // open connectors
+        try (StartupProfiler.Phase ignored = StartupProfiler.phase("doStart")) {
+            doStart();
+        }
     }
 
     /**
@@ -0,0 +1,298 @@
+package ameba.container;
+
+import ameba.core.Application;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+import com.sun.management.HotSpotDiagnosticMXBean;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>JIT warm up.</p>
+ * <p>
+ * Replay the configured in-memory requests through {@link ApplicationHandler#apply(ContainerRequest)} before
+ * the connectors are opened, so routing, message body writers and resources are compiled before real traffic.
+ * </p>
+ * <pre>
+ * warmup.enabled=true
+ * warmup.iterations=10000
+ * warmup.timeout=60000
+ * warmup.request.users=GET /users?page=1
+ * warmup.request.users.header.Accept=application/json
+ * warmup.request.user=GET /users/1
+ * warmup.request.user.header.Accept=application/json
+ * </pre>
+ * The default iterations is the invocation threshold of the last compiler tier, the warm up stops when the
+ * timeout is exceeded, and reports whether every request reached the iterations.
+ * <p>
+ * Every request is replayed thousands of times on every boot, so the warm up requests must be side-effect free,
+ * don't configure requests which insert, update or delete data.
+ * </p>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+public final class WarmUp {
+    private static final Logger logger = LoggerFactory.getLogger(WarmUp.class);
+    private static final String PREFIX = "warmup.";
+    private static final String REQUEST_PREFIX = PREFIX + "request.";
+    private static final String HEADER_PREFIX = "header.";
+    private static final URI BASE_URI = URI.create("http://localhost/");
+    private static final int DEFAULT_COMPILE_THRESHOLD = 10000;
+    private static final long DEFAULT_TIMEOUT = 60000;
+
+    private WarmUp() {
+    }
+
+    /**
+     * <p>isEnabled.</p>
+     *
+     * @param application a {@link ameba.core.Application} object.
+     * @return true if warm up is enabled
+     */
+    public static boolean isEnabled(Application application) {
+        return Boolean.parseBoolean((String) application.getSrcProperties().get(PREFIX + "enabled"));
+    }
+
+    /**
+     * replay configured requests
+     *
+     * @param application application
+     * @param handler     application handler of the container
+     */
+    public static void run(Application application, ApplicationHandler handler) {
+        run(application.getSrcProperties(), handler);
+    }
+
+    /**
+     * replay configured requests
+     *
+     * @param config  warm up config, the keys start with <code>warmup.</code>
+     * @param handler application handler
+     */
+    public static void run(Map<String, Object> config, ApplicationHandler handler) {
+        List<Request> requests = readRequests(config);
+        if (requests.isEmpty()) {
+            logger.warn("warm up is enabled but no warmup.request configured");
+            return;
+        }
+
+        int threshold = getCompileThreshold();
+        Integer iterations = Ints.tryParse(StringUtils.defaultString((String) config.get(PREFIX + "iterations")));
+        if (iterations == null) {
+            iterations = threshold;
+        }
+        Long timeout = Longs.tryParse(StringUtils.defaultString((String) config.get(PREFIX + "timeout")));
+        if (timeout == null) {
+            timeout = DEFAULT_TIMEOUT;
+        }
+
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        boolean compilationTime = compilation != null && compilation.isCompilationTimeMonitoringSupported();
+        long compileStart = compilationTime ? compilation.getTotalCompilationTime() : 0;
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+        logger.info("warm up {} requests {} times", requests.size(), iterations);
+        run:
+        for (int i = 0; i < iterations; i++) {
+            for (Request request : requests) {
+                if (Thread.currentThread().isInterrupted()) {
+                    break run;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    logger.warn("warm up timeout {}ms exceeded", timeout);
+                    break run;
+                }
+                request.apply(handler, remaining);
+            }
+        }
+
+        long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        boolean reached = true;
+        for (Request request : requests) {
+            boolean requestReached = request.succeeded >= threshold;
+            reached &= requestReached;
+            logger.debug("warm up {} {} succeeded {}, failed {}, target compilation count {} reached {}",
+                    request.method, request.uri, request.succeeded, request.failed, threshold, requestReached);
+        }
+        logger.info("warm up finished in {}ms, jit compilation time {}ms, target compilation count {} reached {}",
+                time,
+                compilationTime ? compilation.getTotalCompilationTime() - compileStart : -1,
+                threshold,
+                reached);
+    }
+
+    /**
+     * send every configured request once over HTTP, so the classes of connectors and request path are loaded
+     *
+     * @param config  warm up config, the keys start with <code>warmup.</code>
+     * @param baseUri base uri of the connector
+     * @return count of requests which response status is less than 500
+     */
+    public static int request(Map<String, Object> config, URI baseUri) {
+        List<Request> requests = readRequests(config);
+        if (requests.isEmpty()) {
+            logger.warn("no warmup.request configured");
+        }
+        int succeeded = 0;
+        for (Request request : requests) {
+            URI uri = baseUri.resolve(BASE_URI.relativize(request.uri));
+            if (request.send(uri)) {
+                succeeded++;
+            }
+        }
+        logger.info("send {} warm up requests to {}, {} succeeded", requests.size(), baseUri, succeeded);
+        return succeeded;
+    }
+
+    private static List<Request> readRequests(Map<String, Object> config) {
+        Map<String, Request> requests = Maps.newLinkedHashMap();
+        // request line first, then headers and body
+        for (String key : config.keySet()) {
+            if (!key.startsWith(REQUEST_PREFIX)) continue;
+            String name = key.substring(REQUEST_PREFIX.length());
+            if (name.indexOf('.') != -1) continue;
+            String line = StringUtils.trim((String) config.get(key));
+            String[] parts = StringUtils.split(line, " ", 2);
+            if (parts == null || parts.length != 2) {
+                logger.warn("illegal warm up request {}={}, must be [METHOD path]", key, line);
+                continue;
+            }
+            String path = StringUtils.removeStart(parts[1].trim(), "/");
+            requests.put(name, new Request(parts[0].toUpperCase(), BASE_URI.resolve(path)));
+        }
+        for (String key : config.keySet()) {
+            if (!key.startsWith(REQUEST_PREFIX)) continue;
+            String name = key.substring(REQUEST_PREFIX.length());
+            int index = name.indexOf('.');
+            if (index == -1) continue;
+            Request request = requests.get(name.substring(0, index));
+            if (request == null) continue;
+            String attr = name.substring(index + 1);
+            String value = (String) config.get(key);
+            if (attr.startsWith(HEADER_PREFIX)) {
+                request.headers.put(attr.substring(HEADER_PREFIX.length()), value);
+            } else if ("body".equals(attr)) {
+                request.body = value.getBytes(Charsets.UTF_8);
+            }
+        }
+        return Lists.newArrayList(requests.values());
+    }
+
+    private static int getCompileThreshold() {
+        try {
+            HotSpotDiagnosticMXBean bean = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            if (bean != null) {
+                boolean tiered = Boolean.parseBoolean(bean.getVMOption("TieredCompilation").getValue());
+                String value = bean.getVMOption(tiered ? "Tier4InvocationThreshold" : "CompileThreshold").getValue();
+                Integer threshold = Ints.tryParse(value);
+                if (threshold != null) {
+                    return threshold;
+                }
+            }
+        } catch (IllegalArgumentException | LinkageError e) {
+            // not hotspot
+        }
+        return DEFAULT_COMPILE_THRESHOLD;
+    }
+
+    private static class Request {
+        final String method;
+        final URI uri;
+        final Map<String, String> headers = Maps.newLinkedHashMap();
+        byte[] body;
+        int succeeded;
+        int failed;
+
+        Request(String method, URI uri) {
+            this.method = method;
+            this.uri = uri;
+        }
+
+        void apply(ApplicationHandler handler, long timeoutNanos) {
+            ContainerRequest request = new ContainerRequest(BASE_URI, uri, method, null, new MapPropertiesDelegate());
+            headers.forEach(request::header);
+            if (body != null) {
+                request.setEntityStream(new ByteArrayInputStream(body));
+            }
+            try {
+                ContainerResponse response = handler.apply(request).get(timeoutNanos, TimeUnit.NANOSECONDS);
+                if (response.getStatus() < 500) {
+                    succeeded++;
+                    return;
+                }
+                if (failed == 0) {
+                    logger.warn("warm up {} {} response status {}", method, uri, response.getStatus());
+                }
+            } catch (ExecutionException | TimeoutException e) {
+                if (failed == 0) {
+                    logger.warn("warm up " + method + " " + uri + " has error", e);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            failed++;
+        }
+
+        boolean send(URI uri) {
+            HttpURLConnection connection = null;
+            try {
+                connection = (HttpURLConnection) uri.toURL().openConnection();
+                connection.setRequestMethod(method);
+                headers.forEach(connection::setRequestProperty);
+                if (body != null) {
+                    connection.setDoOutput(true);
+                    try (OutputStream out = connection.getOutputStream()) {
+                        out.write(body);
+                    }
+                }
+                int status = connection.getResponseCode();
+                InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+                if (in != null) {
+                    try {
+                        IOUtils.copy(in, NullOutputStream.NULL_OUTPUT_STREAM);
+                    } finally {
+                        IOUtils.closeQuietly(in);
+                    }
+                }
+                if (status < 500) {
+                    return true;
+                }
+                logger.warn("warm up {} {} response status {}", method, uri, status);
+            } catch (IOException e) {
+                logger.warn("warm up " + method + " " + uri + " has error", e);
+            } finally {
+                if (connection != null) {
+                    connection.disconnect();
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -14,8 +14,11 @@ import ameba.i18n.Messages;
 import ameba.inject.Value;
 import ameba.scanner.Acceptable;
 import ameba.scanner.ClassFoundEvent;
+import ameba.scanner.ClassIndex;
 import ameba.scanner.ClassInfo;
+import ameba.scanner.ClassMetadata;
 import ameba.scanner.PackageScanner;
+import ameba.scanner.ScanCache;
 import ameba.util.*;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.gaffer.GafferUtil;
@@ -24,11 +27,12 @@ import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.primitives.Doubles;
 import com.google.common.primitives.Floats;
 import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
-import javassist.CtClass;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.glassfish.hk2.api.Injectee;
@@ -65,6 +69,7 @@ import java.net.*;
 import java.nio.charset.Charset;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
@@ -89,6 +94,10 @@ public class Application {
      * Constant <code>DEFAULT_APP_CONF="conf/application.conf"</code>
      */
     public static final String DEFAULT_APP_CONF = "conf/application.conf";
+    /**
+     * Constant <code>STARTUP_REPORT_KEY="app.startup.report"</code>
+     */
+    public static final String STARTUP_REPORT_KEY = "app.startup.report";
     private static final String REGISTER_CONF_PREFIX = "register.";
     private static final String ADDON_CONF_PREFIX = "addon.";
     private static final String JERSEY_CONF_NAME_PREFIX = "sys.core.";
@@ -97,6 +106,7 @@ public class Application {
     private static final String EXCLUDES_KEY_PREFIX = EXCLUDES_KEY + ".";
     private static final Logger logger = LoggerFactory.getLogger(Application.class);
     private static String SCAN_CLASSES_CACHE_FILE;
+    private static final String SCAN_CACHE_FILE = "conf/classes.cache";
     protected boolean jmxEnabled;
     private String[] configFiles;
     private long timestamp = System.currentTimeMillis();
@@ -107,6 +117,9 @@ public class Application {
     private Set<Addon> addons = Sets.newLinkedHashSet();
     private Set<String> excludes = Sets.newLinkedHashSet();
     private ResourceConfig config = new ExcludeResourceConfig(excludes);
+    // guards the config while addons are set up concurrently
+    private final Object configLock = new Object();
+    private volatile boolean concurrentInit;
     private Map<String, Object> srcProperties = Maps.newLinkedHashMap();
     private Set<String> scanPackages;
     private String[] ids;
@@ -357,6 +370,8 @@ public class Application {
     @SuppressWarnings("unchecked")
     protected void configure() {
 
+        StartupProfiler.begin();
+
         Properties properties = readDefaultConfig();
 
         Properties appProperties = new Props();
@@ -395,15 +410,24 @@ public class Application {
         readModeConfig(properties, mode);
 
         //读取模块配置
-        readModuleConfig(properties, getMode().isDev());
+        try (StartupProfiler.Phase ignored = StartupProfiler.phase("readModuleConfig")) {
+            readModuleConfig(properties, getMode().isDev());
+        }
 
         properties.putAll(appProperties);
 
+        //启动报告需要特性的采样
+        if (StringUtils.isNotBlank(properties.getProperty(STARTUP_REPORT_KEY))) {
+            StartupProfiler.startSampling();
+        }
+
         srcProperties.putAll((Map) properties);
 
         setEnvironmentConfig(srcProperties);
 
-        addOnSetup(srcProperties);
+        try (StartupProfiler.Phase ignored = StartupProfiler.phase("addOnSetup")) {
+            addOnSetup(srcProperties);
+        }
 
         //转换jersey配置项
         convertJerseyConfig(srcProperties);
@@ -421,7 +445,9 @@ public class Application {
         configureResource();
 
         //配置特性
-        configureFeature(srcProperties);
+        try (StartupProfiler.Phase ignored = StartupProfiler.phase("configureFeature")) {
+            configureFeature(srcProperties);
+        }
 
         //配置服务器相关
         configureServer();
@@ -429,9 +455,13 @@ public class Application {
         //清空临时读取的配置
         properties.clear();
 
-        scanClasses();
+        try (StartupProfiler.Phase ignored = StartupProfiler.phase("scanClasses")) {
+            scanClasses();
+        }
 
-        addOnDone();
+        try (StartupProfiler.Phase ignored = StartupProfiler.phase("addOnDone")) {
+            addOnDone();
+        }
 
         addons = Collections.unmodifiableSet(addons);
         excludes = Collections.unmodifiableSet(excludes);
@@ -464,6 +494,18 @@ public class Application {
     }
 
     private void scanClasses() {
+        boolean parallel = Boolean.parseBoolean((String) getProperty("scanner.parallel"));
+        URL root = IOUtils.getResource("/");
+        if (root != null && Boolean.parseBoolean((String) getProperty("scanner.cache"))) {
+            logger.debug(Messages.get("info.scan.classes"));
+            ScanCache cache = ScanCache.load(new File(root.getPath(), SCAN_CACHE_FILE), getScanCacheKey());
+            PackageScanner scanner = new PackageScanner(scanPackages, parallel);
+            scanner.setCache(cache);
+            scanner.scan();
+            cache.save();
+            scanner.clear();
+            return;
+        }
         if (SCAN_CLASSES_CACHE_FILE == null) {
             SCAN_CLASSES_CACHE_FILE = IOUtils.getResource("/").getPath()
                     + "conf/classes_" + getApplicationVersion() + ".list";
@@ -471,10 +513,13 @@ public class Application {
         URL cacheList = IOUtils.getResource(SCAN_CLASSES_CACHE_FILE);
         if (cacheList == null || getMode().isDev()) {
             logger.debug(Messages.get("info.scan.classes"));
-            PackageScanner scanner = new PackageScanner(scanPackages);
+            PackageScanner scanner = new PackageScanner(scanPackages, parallel);
             scanner.scan();
 
-            if (getMode().isDev()) return;
+            if (getMode().isDev()) {
+                scanner.clear();
+                return;
+            }
 
             OutputStream out = null;
             try {
@@ -503,11 +548,17 @@ public class Application {
                     String className = reader.readLine();
                     while (className != null) {
                         if (StringUtils.isBlank(className)) continue;
-                        String fileName = className.replace(".", "/").concat(".class");
-                        final InputStream fin = IOUtils.getResourceAsStream(fileName);
-                        ClassInfo info = new ClassInfo(className.substring(className.lastIndexOf(".") + 1).concat(".class")) {
+                        final String fileName = className.replace(".", "/").concat(".class");
+                        // indexed class open the file only if listener need it
+                        ClassInfo info = new ClassInfo(className.substring(className.lastIndexOf(".") + 1).concat(".class"),
+                                ClassIndex.get(className)) {
+                            InputStream fin;
+
                             @Override
                             public InputStream getFileStream() {
+                                if (fin == null) {
+                                    fin = IOUtils.getResourceAsStream(fileName);
+                                }
                                 return fin;
                             }
 
@@ -526,10 +577,23 @@ public class Application {
                 logger.error(Messages.get("info.read.class.cache.error"), e);
             } finally {
                 closeQuietly(in);
+                ClassMetadata.clearCache();
             }
         }
     }
 
+    // accept results depend on application version and configuration
+    private String getScanCacheKey() {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        new TreeMap<>(getProperties()).forEach((key, value) -> {
+            if (value instanceof String) {
+                hasher.putString(key, Charsets.UTF_8).putString((String) value, Charsets.UTF_8);
+            }
+        });
+        hasher.putString(new TreeSet<>(scanPackages).toString(), Charsets.UTF_8);
+        return getApplicationVersion() + "-" + hasher.hash();
+    }
+
     private void registerBinder() {
         register(new AbstractBinder() {
             @Override
@@ -615,15 +679,16 @@ public class Application {
             }
         }
 
+        List<Addon> registered = Lists.newArrayList();
+        Map<Addon, SortEntry> entries = Maps.newIdentityHashMap();
         for (SortEntry entry : addOnSorts) {
             logger.debug(Messages.get("info.addon.register.item", entry.key, entry.className));
             try {
                 Class addOnClass = ClassUtils.getClass(entry.className);
                 if (Addon.class.isAssignableFrom(addOnClass)) {
                     Addon addon = (Addon) addOnClass.newInstance();
-                    if (addon.isEnabled(this) && addons.add(addon)) {
-                        addon.setup(this);
-                    }
+                    registered.add(addon);
+                    entries.put(addon, entry);
                 } else {
                     throw new ConfigErrorException(Messages.get("info.addon.register.error.interface", entry.name, entry.key));
                 }
@@ -635,18 +700,49 @@ public class Application {
                 logger.error(Messages.get("info.addon.register.error", entry.name, entry.key), e);
             }
         }
+
+        // check enabled right before setup, it may depend on the setup of addons before it
+        runInitGraph(DependencyGraph.of(registered, Addon::getClass), addon -> {
+            try (StartupProfiler.Phase ignored = StartupProfiler.phase("addon.setup:" + addon.getClass().getName())) {
+                boolean enabled;
+                synchronized (addons) {
+                    enabled = addon.isEnabled(this) && addons.add(addon);
+                }
+                if (enabled) {
+                    addon.setup(this);
+                }
+            } catch (Exception e) {
+                SortEntry entry = entries.get(addon);
+                logger.error(Messages.get("info.addon.register.error", entry.name, entry.key), e);
+            }
+        });
     }
 
     /**
      * <p>addOnDone.</p>
      */
     protected void addOnDone() {
-        for (Addon addon : addons) {
-            try {
+        runInitGraph(DependencyGraph.of(Lists.newArrayList(addons), Addon::getClass), addon -> {
+            try (StartupProfiler.Phase ignored = StartupProfiler.phase("addon.done:" + addon.getClass().getName())) {
                 addon.done(this);
             } catch (Exception e) {
                 logger.error(Messages.get("info.addon.error", addon.getClass().getName()), e);
             }
+        });
+    }
+
+    // the config is only locked for reading while addons run concurrently
+    private void runInitGraph(DependencyGraph<Addon> graph, Consumer<Addon> action) {
+        Integer parallelism = Ints.tryParse(StringUtils.defaultString((String) getProperty("app.init.parallelism")));
+        if (parallelism == null || parallelism < 2) {
+            graph.run(action, 1);
+            return;
+        }
+        concurrentInit = true;
+        try {
+            graph.run(action, parallelism);
+        } finally {
+            concurrentInit = false;
         }
     }
 
@@ -725,18 +821,12 @@ public class Application {
             }
         }
 
+        List<FeatureEntry> loaded = Lists.newArrayList();
         for (FeatureEntry entry : featureEntries) {
             try {
                 logger.debug(Messages.get("info.feature.register.item", entry.name, entry.className));
-                Class clazz = ClassUtils.getClass(entry.className);
-                if (isRegistered(clazz)) {
-                    beak++;
-                    logger.warn(Messages.get("info.feature.exists", entry.name, clazz));
-                    continue;
-                }
-
-                register(clazz, entry.diPriority);
-                suc++;
+                entry.clazz = ClassUtils.getClass(entry.className);
+                loaded.add(entry);
             } catch (ClassNotFoundException e) {
                 fail++;
                 if (!entry.name.startsWith("default."))
@@ -746,6 +836,18 @@ public class Application {
             }
         }
 
+        // jersey configure features one by one in register order, so features are ordered by dependencies
+        for (FeatureEntry entry : DependencyGraph.of(loaded, e -> e.clazz).sorted()) {
+            if (isRegistered(entry.clazz)) {
+                beak++;
+                logger.warn(Messages.get("info.feature.exists", entry.name, entry.clazz));
+                continue;
+            }
+
+            register(entry.clazz, entry.diPriority);
+            suc++;
+        }
+
         String registerStr = StringUtils.deleteWhitespace(
                 StringUtils.defaultIfBlank((String) getProperty("registers"), ""));
         String[] registers;
@@ -782,21 +884,20 @@ public class Application {
 
         SystemEventBus.subscribe(ClassFoundEvent.class, event -> event.accept(new Acceptable<ClassInfo>() {
 
-            private boolean isResource(CtClass ctClass) {
-                int modifiers = ctClass.getModifiers();
-                return !javassist.Modifier.isAbstract(modifiers)
-                        && !javassist.Modifier.isInterface(modifiers)
-                        && !javassist.Modifier.isAnnotation(modifiers)
-                        && !javassist.Modifier.isEnum(modifiers);
+            private boolean isResource(ClassMetadata metadata) {
+                return !metadata.isAbstract()
+                        && !metadata.isInterface()
+                        && !metadata.isAnnotation()
+                        && !metadata.isEnum();
             }
 
             @Override
             public boolean accept(ClassInfo info) {
                 if (info.isPublic()) {
-                    CtClass thisClass = info.getCtClass();
+                    ClassMetadata thisClass = info.getMetadata();
                     if (isResource(thisClass)) {
-                        if (info.accpet(ctClass -> ctClass.hasAnnotation(Path.class)
-                                || ctClass.hasAnnotation(Provider.class))) {
+                        if (info.accept(metadata -> metadata.hasAnnotation(Path.class)
+                                || metadata.hasAnnotation(Provider.class))) {
                             resources.add(info);
                             return true;
                         }
@@ -1026,7 +1127,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application register(Class<?> componentClass) {
-        config.register(componentClass);
+        synchronized (configLock) {
+            config.register(componentClass);
+        }
         return this;
     }
 
@@ -1037,7 +1140,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application register(Object component) {
-        config.register(component);
+        synchronized (configLock) {
+            config.register(component);
+        }
         return this;
     }
 
@@ -1048,7 +1153,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application registerClasses(Class<?>... classes) {
-        config.registerClasses(classes);
+        synchronized (configLock) {
+            config.registerClasses(classes);
+        }
         return this;
     }
 
@@ -1060,7 +1167,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application register(Object component, int bindingPriority) {
-        config.register(component, bindingPriority);
+        synchronized (configLock) {
+            config.register(component, bindingPriority);
+        }
         return this;
     }
 
@@ -1089,7 +1198,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application setClassLoader(ClassLoader classLoader) {
-        config.setClassLoader(classLoader);
+        synchronized (configLock) {
+            config.setClassLoader(classLoader);
+        }
         return this;
     }
 
@@ -1100,7 +1211,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application registerInstances(Object... instances) {
-        config.registerInstances(instances);
+        synchronized (configLock) {
+            config.registerInstances(instances);
+        }
         return this;
     }
 
@@ -1111,10 +1224,12 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application packages(String... packages) {
-        if (scanPackages == null) {
-            scanPackages = Sets.newHashSet();
+        synchronized (configLock) {
+            if (scanPackages == null) {
+                scanPackages = Sets.newHashSet();
+            }
+            Collections.addAll(scanPackages, packages);
         }
-        Collections.addAll(scanPackages, packages);
         return this;
     }
 
@@ -1135,7 +1250,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application register(Object component, Map<Class<?>, Integer> contracts) {
-        config.register(component, contracts);
+        synchronized (configLock) {
+            config.register(component, contracts);
+        }
         return this;
     }
 
@@ -1174,7 +1291,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application register(Class<?> componentClass, Class<?>... contracts) {
-        config.register(componentClass, contracts);
+        synchronized (configLock) {
+            config.register(componentClass, contracts);
+        }
         return this;
     }
 
@@ -1195,7 +1314,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application register(Object component, Class<?>... contracts) {
-        config.register(component, contracts);
+        synchronized (configLock) {
+            config.register(component, contracts);
+        }
         return this;
     }
 
@@ -1206,6 +1327,11 @@ public class Application {
      * @return a boolean.
      */
     public boolean isRegistered(Class<?> componentClass) {
+        if (concurrentInit) {
+            synchronized (configLock) {
+                return config.isRegistered(componentClass);
+            }
+        }
         return config.isRegistered(componentClass);
     }
 
@@ -1216,7 +1342,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application registerResources(Set<Resource> resources) {
-        config.registerResources(resources);
+        synchronized (configLock) {
+            config.registerResources(resources);
+        }
         return this;
     }
 
@@ -1247,6 +1375,11 @@ public class Application {
      * @return a {@link java.lang.Object} object.
      */
     public Object getProperty(String name) {
+        if (concurrentInit) {
+            synchronized (configLock) {
+                return config.getProperty(name);
+            }
+        }
         return config.getProperty(name);
     }
 
@@ -1257,7 +1390,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application addProperties(Map<String, Object> properties) {
-        config.addProperties(properties);
+        synchronized (configLock) {
+            config.addProperties(properties);
+        }
         return this;
     }
 
@@ -1268,7 +1403,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application registerFinder(ResourceFinder resourceFinder) {
-        config.registerFinder(resourceFinder);
+        synchronized (configLock) {
+            config.registerFinder(resourceFinder);
+        }
         return this;
     }
 
@@ -1289,7 +1426,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application register(Class<?> componentClass, int bindingPriority) {
-        config.register(componentClass, bindingPriority);
+        synchronized (configLock) {
+            config.register(componentClass, bindingPriority);
+        }
         return this;
     }
 
@@ -1300,7 +1439,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application registerResources(Resource... resources) {
-        config.registerResources(resources);
+        synchronized (configLock) {
+            config.registerResources(resources);
+        }
         return this;
     }
 
@@ -1320,6 +1461,11 @@ public class Application {
      * @return a boolean.
      */
     public boolean isRegistered(Object component) {
+        if (concurrentInit) {
+            synchronized (configLock) {
+                return config.isRegistered(component);
+            }
+        }
         return config.isRegistered(component);
     }
 
@@ -1339,7 +1485,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application setProperties(Map<String, ?> properties) {
-        config.setProperties(properties);
+        synchronized (configLock) {
+            config.setProperties(properties);
+        }
         return this;
     }
 
@@ -1351,7 +1499,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application property(String name, Object value) {
-        config.property(name, value);
+        synchronized (configLock) {
+            config.property(name, value);
+        }
         return this;
     }
 
@@ -1362,7 +1512,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application registerInstances(Set<Object> instances) {
-        config.registerInstances(instances);
+        synchronized (configLock) {
+            config.registerInstances(instances);
+        }
         return this;
     }
 
@@ -1383,7 +1535,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application register(Class<?> componentClass, Map<Class<?>, Integer> contracts) {
-        config.register(componentClass, contracts);
+        synchronized (configLock) {
+            config.register(componentClass, contracts);
+        }
         return this;
     }
 
@@ -1394,7 +1548,9 @@ public class Application {
      * @return a {@link ameba.core.Application} object.
      */
     public Application registerClasses(Set<Class<?>> classes) {
-        config.registerClasses(classes);
+        synchronized (configLock) {
+            config.registerClasses(classes);
+        }
         return this;
     }
 
@@ -1590,11 +1746,17 @@ public class Application {
     protected static class SysEventListener implements ApplicationEventListener {
         @Override
         public void onEvent(ApplicationEvent event) {
-            SystemEventBus.publish(new ameba.core.event.ApplicationEvent(event));
+            if (SystemEventBus.hasSubscribers(ameba.core.event.ApplicationEvent.class)) {
+                SystemEventBus.publish(new ameba.core.event.ApplicationEvent(event));
+            }
         }
 
         @Override
         public RequestEventListener onRequest(org.glassfish.jersey.server.monitoring.RequestEvent requestEvent) {
+            // nobody interested, no request listener and no event wrapper for this request
+            if (!AmebaFeature.hasEventSubscribers(RequestEvent.class)) {
+                return null;
+            }
             AmebaFeature.publishEvent(new RequestEvent(requestEvent));
             return event -> AmebaFeature.publishEvent(new RequestEvent(event));
         }
@@ -1700,6 +1862,7 @@ public class Application {
 
     private class FeatureEntry extends SortEntry {
         int diPriority;
+        Class<?> clazz;
 
         private FeatureEntry(int diPriority, Integer sortPriority, String className, String name) {
             super(sortPriority, className, name);
@@ -0,0 +1,222 @@
+package ameba.core;
+
+import ameba.exception.AmebaException;
+import ameba.exception.ConfigErrorException;
+import ameba.i18n.Messages;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * <p>Initialization graph of addons and features.</p>
+ * <p>
+ * Nodes are given in priority order. A node annotated with {@link ameba.core.Requires} runs after
+ * the nodes provide it's required names only, other nodes (include the nodes only annotated with
+ * {@link ameba.core.Provides}) keep the priority order, they run after all nodes before them,
+ * except the nodes which require them directly or indirectly.
+ * Independent nodes run concurrently if the parallelism is greater than 1.
+ * </p>
+ *
+ * @param <T> node type
+ * @author icode
+ * @since 0.1.13
+ */
+class DependencyGraph<T> {
+    private static final Logger logger = LoggerFactory.getLogger(DependencyGraph.class);
+    private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+    private final List<T> nodes;
+    private final List<Set<Integer>> dependencies;
+
+    private DependencyGraph(List<T> nodes, List<Set<Integer>> dependencies) {
+        this.nodes = nodes;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * build the graph
+     *
+     * @param nodes  nodes in priority order
+     * @param typeOf class of node which is annotated
+     * @param <T>    node type
+     * @return graph
+     */
+    static <T> DependencyGraph<T> of(List<T> nodes, Function<T, Class<?>> typeOf) {
+        int size = nodes.size();
+        Map<String, List<Integer>> providers = Maps.newHashMap();
+        List<String[]> requires = Lists.newArrayListWithCapacity(size);
+        boolean[] required = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            Class<?> type = typeOf.apply(nodes.get(i));
+            Provides provides = type.getAnnotation(Provides.class);
+            Requires require = type.getAnnotation(Requires.class);
+            required[i] = require != null;
+            providers.computeIfAbsent(type.getName(), k -> Lists.newArrayList()).add(i);
+            if (provides != null) {
+                for (String name : provides.value()) {
+                    providers.computeIfAbsent(name, k -> Lists.newArrayList()).add(i);
+                }
+            }
+            requires.add(require == null ? new String[0] : require.value());
+        }
+
+        List<Set<Integer>> dependencies = Lists.newArrayListWithCapacity(size);
+        for (int i = 0; i < size; i++) {
+            Set<Integer> deps = Sets.newTreeSet();
+            for (String name : requires.get(i)) {
+                List<Integer> ps = providers.get(name);
+                if (ps == null) {
+                    logger.warn(Messages.get("info.init.dependency.missing", name,
+                            typeOf.apply(nodes.get(i)).getName()));
+                    continue;
+                }
+                for (Integer p : ps) {
+                    if (p != i) deps.add(p);
+                }
+            }
+            dependencies.add(deps);
+        }
+
+        DependencyGraph<T> graph = new DependencyGraph<>(nodes, dependencies);
+        graph.checkCycle(typeOf);
+        // priority edges are added after the required edges, an edge against a required order is dropped
+        for (int i = 0; i < size; i++) {
+            if (!required[i]) {
+                for (int j = 0; j < i; j++) {
+                    if (!graph.reaches(j, i, new boolean[size])) {
+                        dependencies.get(i).add(j);
+                    }
+                }
+            }
+        }
+        return graph;
+    }
+
+    private boolean reaches(int from, int to, boolean[] visited) {
+        if (from == to) return true;
+        visited[from] = true;
+        for (Integer dep : dependencies.get(from)) {
+            if (!visited[dep] && reaches(dep, to, visited)) return true;
+        }
+        return false;
+    }
+
+    private void checkCycle(Function<T, Class<?>> typeOf) {
+        int[] state = new int[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            List<Integer> path = Lists.newArrayList();
+            if (findCycle(i, state, path)) {
+                List<String> names = Lists.newArrayList();
+                for (Integer p : path) {
+                    names.add(typeOf.apply(nodes.get(p)).getName());
+                }
+                throw new ConfigErrorException(
+                        Messages.get("info.init.dependency.cycle", StringUtils.join(names, " -> ")));
+            }
+        }
+    }
+
+    // state 0 not visited, 1 visiting, 2 done
+    private boolean findCycle(int node, int[] state, List<Integer> path) {
+        if (state[node] == 2) return false;
+        path.add(node);
+        if (state[node] == 1) return true;
+        state[node] = 1;
+        for (Integer dep : dependencies.get(node)) {
+            if (findCycle(dep, state, path)) return true;
+        }
+        state[node] = 2;
+        path.remove(path.size() - 1);
+        return false;
+    }
+
+    /**
+     * nodes in topological order, the priority order is kept between independent nodes
+     *
+     * @return sorted nodes
+     */
+    List<T> sorted() {
+        List<T> result = Lists.newArrayListWithCapacity(nodes.size());
+        for (Integer index : sortedIndexes()) {
+            result.add(nodes.get(index));
+        }
+        return result;
+    }
+
+    private List<Integer> sortedIndexes() {
+        List<Integer> result = Lists.newArrayListWithCapacity(nodes.size());
+        boolean[] done = new boolean[nodes.size()];
+        while (result.size() < nodes.size()) {
+            for (int i = 0; i < nodes.size(); i++) {
+                if (!done[i] && isReady(i, done)) {
+                    done[i] = true;
+                    result.add(i);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean isReady(int node, boolean[] done) {
+        for (Integer dep : dependencies.get(node)) {
+            if (!done[dep]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * run action for all nodes, a node runs after it's dependencies complete
+     *
+     * @param action      node action
+     * @param parallelism max concurrent nodes, run in topological order on the caller thread if less than 2
+     */
+    void run(Consumer<T> action, int parallelism) {
+        if (parallelism < 2 || nodes.size() < 2) {
+            sorted().forEach(action);
+            return;
+        }
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, nodes.size()), r -> {
+            Thread thread = new Thread(r, "ameba-init-" + POOL_COUNTER.incrementAndGet());
+            thread.setContextClassLoader(loader);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // dependencies are always before the node in topological order, so their futures are created
+            CompletableFuture[] futures = new CompletableFuture[nodes.size()];
+            for (Integer index : sortedIndexes()) {
+                T node = nodes.get(index);
+                CompletableFuture[] deps = dependencies.get(index).stream()
+                        .map(dep -> futures[dep])
+                        .toArray(CompletableFuture[]::new);
+                futures[index] = CompletableFuture.allOf(deps)
+                        .thenRunAsync(() -> action.accept(node), executor);
+            }
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new AmebaException(cause);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ameba.core;
+
+import java.lang.annotation.*;
+
+/**
+ * <p>Names provided by an {@link ameba.core.Addon} or feature.</p>
+ * <p>
+ * Addons and features which {@link ameba.core.Requires} the names are initialized after it,
+ * the class name is always provided.
+ * </p>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Provides {
+    /**
+     * provided names
+     *
+     * @return names
+     */
+    String[] value();
+}
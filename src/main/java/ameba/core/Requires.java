@@ -0,0 +1,26 @@
+package ameba.core;
+
+import java.lang.annotation.*;
+
+/**
+ * <p>Names required by an {@link ameba.core.Addon} or feature.</p>
+ * <p>
+ * The annotated addon or feature is initialized after all addons or features which {@link ameba.core.Provides}
+ * the names or which class name is the name. Addons are set up concurrently with other independent addons
+ * if <code>app.init.parallelism</code> is greater than 1, the setup must be thread safe then.
+ * </p>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Requires {
+    /**
+     * required names
+     *
+     * @return names
+     */
+    String[] value();
+}
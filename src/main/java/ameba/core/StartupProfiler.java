@@ -0,0 +1,344 @@
+package ameba.core;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.core.Feature;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Startup profiler.</p>
+ * <p>
+ * Record wall time, cpu time and allocated bytes of the boot phases, such as reading config, scanning
+ * classes, addon setup and done, HK2 population, ApplicationHandler initialization and connector open.
+ * Jersey has not a hook around {@link javax.ws.rs.core.Feature#configure}, so when the report is enabled
+ * the boot thread is sampled and the samples in <code>Feature.configure</code> are counted to the feature.
+ * </p>
+ * The report is a tree of phases in flame graph json, value is wall time in microseconds:
+ * <pre>
+ * {"name":"boot","thread":"main","wall":1,"cpu":1,"allocated":1,"value":1,"children":[]}
+ * </pre>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+public final class StartupProfiler {
+    private static final Logger logger = LoggerFactory.getLogger(StartupProfiler.class);
+    private static final long SAMPLE_INTERVAL_MILLIS = 2;
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+    private static final Phase NOOP = new Phase(null);
+    private static final ThreadLocal<Deque<Node>> STACK = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private static Node root;
+    private static Thread bootThread;
+    private static Deque<Node> bootStack;
+    private static Thread sampler;
+
+    private StartupProfiler() {
+    }
+
+    /**
+     * start profiling on the current thread, previous records are dropped
+     */
+    public static synchronized void begin() {
+        stopSampling();
+        STACK.remove();
+        bootThread = Thread.currentThread();
+        bootStack = STACK.get();
+        root = new Node("boot");
+        root.start();
+        bootStack.push(root);
+    }
+
+    /**
+     * <p>isActive.</p>
+     *
+     * @return true if profiling
+     */
+    public static synchronized boolean isActive() {
+        return root != null;
+    }
+
+    /**
+     * start a phase, close it at the end of the phase.
+     * The phase is a child of the open phase on the current thread,
+     * or the open phase on the boot thread if it is started on another thread.
+     *
+     * @param name phase name
+     * @return phase, a no op phase if not profiling
+     */
+    public static synchronized Phase phase(String name) {
+        if (root == null) {
+            return NOOP;
+        }
+        Deque<Node> stack = STACK.get();
+        Node parent = stack.isEmpty() ? bootStack.peek() : stack.peek();
+        Node node = new Node(name);
+        if (parent != null) {
+            parent.children.add(node);
+        }
+        node.start();
+        stack.push(node);
+        return new Phase(node);
+    }
+
+    private static synchronized void close(Node node) {
+        node.stop();
+        Deque<Node> stack = STACK.get();
+        stack.remove(node);
+    }
+
+    /**
+     * sample the boot thread to count <code>Feature.configure</code>
+     */
+    public static synchronized void startSampling() {
+        if (root == null || sampler != null) return;
+        Thread boot = bootThread;
+        sampler = new Thread(() -> sample(boot), "ameba-startup-profiler");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    private static synchronized void stopSampling() {
+        if (sampler != null) {
+            sampler.interrupt();
+            sampler = null;
+        }
+    }
+
+    private static void sample(Thread boot) {
+        Map<String, Boolean> features = Maps.newHashMap();
+        ClassLoader loader = boot.getContextClassLoader();
+        long id = boot.getId();
+        long lastWall = System.nanoTime();
+        long lastCpu = threadCpuTime(id);
+        long lastAllocated = threadAllocatedBytes(id);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            StackTraceElement[] trace = boot.getStackTrace();
+            long wall = System.nanoTime();
+            long cpu = threadCpuTime(id);
+            long allocated = threadAllocatedBytes(id);
+
+            // outer feature first
+            List<String> path = Lists.newArrayList();
+            for (int i = trace.length - 1; i >= 0; i--) {
+                StackTraceElement element = trace[i];
+                if ("configure".equals(element.getMethodName())
+                        && features.computeIfAbsent(element.getClassName(), name -> isFeature(name, loader))) {
+                    path.add(element.getClassName());
+                }
+            }
+            if (!path.isEmpty()) {
+                addSample(path, wall - lastWall, cpu - lastCpu, allocated - lastAllocated);
+            }
+            lastWall = wall;
+            lastCpu = cpu;
+            lastAllocated = allocated;
+        }
+    }
+
+    private static boolean isFeature(String className, ClassLoader loader) {
+        try {
+            return Feature.class.isAssignableFrom(Class.forName(className, false, loader));
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static synchronized void addSample(List<String> path, long wall, long cpu, long allocated) {
+        if (root == null) return;
+        Node parent = bootStack.peek();
+        if (parent == null) return;
+        for (String className : path) {
+            String name = "Feature.configure:" + className;
+            Node node = null;
+            for (Node child : parent.children) {
+                if (child.sampled && child.name.equals(name)) {
+                    node = child;
+                    break;
+                }
+            }
+            if (node == null) {
+                node = new Node(name);
+                node.sampled = true;
+                node.thread = bootThread.getName();
+                parent.children.add(node);
+            }
+            node.samples++;
+            node.wall += wall;
+            node.cpu += cpu;
+            node.allocated += allocated;
+            parent = node;
+        }
+    }
+
+    /**
+     * stop profiling, log the top phases and write the report
+     *
+     * @param report report file, not write if null
+     */
+    public static void end(File report) {
+        Node boot;
+        synchronized (StartupProfiler.class) {
+            if (root == null) return;
+            stopSampling();
+            root.stop();
+            boot = root;
+            root = null;
+            bootThread = null;
+            bootStack = null;
+            STACK.remove();
+        }
+        if (logger.isDebugEnabled()) {
+            for (Node node : boot.children) {
+                logger.debug("startup phase {} wall {}ms, cpu {}ms, allocated {}KB", node.name,
+                        node.wall / 1000000, node.cpu / 1000000, node.allocated / 1024);
+            }
+        }
+        logger.info("startup in {}ms", boot.wall / 1000000);
+        if (report != null) {
+            try {
+                FileUtils.forceMkdir(report.getAbsoluteFile().getParentFile());
+                try (Writer writer = Files.newBufferedWriter(report.toPath(), Charsets.UTF_8)) {
+                    boot.write(writer);
+                }
+                logger.info("startup report has been written to {}", report.getAbsolutePath());
+            } catch (IOException e) {
+                logger.warn("write startup report has error", e);
+            }
+        }
+    }
+
+    private static long threadCpuTime(long id) {
+        try {
+            return THREAD_BEAN.isThreadCpuTimeSupported() ? Math.max(THREAD_BEAN.getThreadCpuTime(id), 0) : 0;
+        } catch (UnsupportedOperationException e) {
+            return 0;
+        }
+    }
+
+    private static long threadAllocatedBytes(long id) {
+        if (THREAD_BEAN instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+            try {
+                if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                    return Math.max(bean.getThreadAllocatedBytes(id), 0);
+                }
+            } catch (UnsupportedOperationException e) {
+                // not supported
+            }
+        }
+        return 0;
+    }
+
+    private static void writeString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+    /**
+     * A profiling phase.
+     */
+    public static final class Phase implements AutoCloseable {
+        private final Node node;
+
+        private Phase(Node node) {
+            this.node = node;
+        }
+
+        /**
+         * end the phase
+         */
+        @Override
+        public void close() {
+            if (node != null) {
+                StartupProfiler.close(node);
+            }
+        }
+    }
+
+    private static class Node {
+        final String name;
+        final List<Node> children = Lists.newArrayList();
+        String thread;
+        boolean sampled;
+        int samples;
+        long wall;
+        long cpu;
+        long allocated;
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        void start() {
+            long id = Thread.currentThread().getId();
+            thread = Thread.currentThread().getName();
+            wall = System.nanoTime();
+            cpu = threadCpuTime(id);
+            allocated = threadAllocatedBytes(id);
+        }
+
+        void stop() {
+            long id = Thread.currentThread().getId();
+            wall = System.nanoTime() - wall;
+            cpu = threadCpuTime(id) - cpu;
+            allocated = threadAllocatedBytes(id) - allocated;
+        }
+
+        void write(Writer writer) throws IOException {
+            writer.write("{\"name\":");
+            writeString(writer, name);
+            writer.write(",\"thread\":");
+            writeString(writer, thread);
+            if (sampled) {
+                writer.write(",\"samples\":" + samples);
+            }
+            writer.write(",\"wall\":" + wall);
+            writer.write(",\"cpu\":" + cpu);
+            writer.write(",\"allocated\":" + allocated);
+            writer.write(",\"value\":" + wall / 1000);
+            writer.write(",\"children\":[");
+            for (int i = 0; i < children.size(); i++) {
+                if (i > 0) writer.write(',');
+                children.get(i).write(writer);
+            }
+            writer.write("]}");
+        }
+    }
+}
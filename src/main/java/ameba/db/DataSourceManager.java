@@ -3,10 +3,12 @@ package ameba.db;
 import ameba.container.event.ShutdownEvent;
 import ameba.core.Addon;
 import ameba.core.Application;
+import ameba.core.Provides;
 import ameba.db.model.ModelManager;
 import ameba.event.SystemEventBus;
 import com.alibaba.druid.pool.DruidDataSource;
 import com.alibaba.druid.pool.DruidDataSourceFactory;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import org.apache.commons.lang3.StringUtils;
 import org.glassfish.jersey.internal.inject.AbstractBinder;
@@ -15,8 +17,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
+import java.sql.SQLException;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>DataSourceManager class.</p>
@@ -24,6 +30,7 @@ import java.util.Set;
  * @author 张立鑫 IntelligentCode
  * @since 2013-08-07
  */
+@Provides("dataSource")
 public class DataSourceManager extends Addon {
 
     private static final Map<String, DruidDataSource> dataSourceMap = Maps.newLinkedHashMap();
@@ -91,29 +98,44 @@ public class DataSourceManager extends Addon {
             }
         }
 
+        Map<String, DruidDataSource> eager = Maps.newLinkedHashMap();
+        Map<String, DruidDataSource> lazy = Maps.newLinkedHashMap();
+        Map<String, Long> timeouts = Maps.newHashMap();
         for (String name : map.keySet()) {
             try {
                 Map<String, String> conf = map.get(name);
-                String value = conf.get("init");
-                if (StringUtils.isBlank(value)) {
-                    conf.put("init", "true");
+                //db.[name].init=true|false|lazy，true 和 lazy 的连接池在这里配置为并发创建初始连接
+                String init = StringUtils.defaultIfBlank(conf.put("init", "false"), "true").trim();
+                String timeout = conf.remove("initTimeout");
+                if (StringUtils.isNotBlank(timeout)) {
+                    timeouts.put(name, Long.parseLong(timeout.trim()));
                 }
                 config.putAll(druidMap);
                 DruidDataSource ds = (DruidDataSource) DruidDataSourceFactory.createDataSource(conf);
                 ds.setName(name);
                 ds.setDefaultAutoCommit(false);
                 dataSourceMap.put(name, ds);
+                if ("lazy".equalsIgnoreCase(init)) {
+                    lazy.put(name, ds);
+                } else if (Boolean.parseBoolean(init)) {
+                    eager.put(name, ds);
+                }
             } catch (Exception e) {
                 logger.error("配置数据源出错", e);
             }
         }
 
+        ScheduledExecutorService scheduler = initDataSources(eager, lazy, timeouts);
+
         SystemEventBus.subscribe(ShutdownEvent.class,
                 (ShutdownEvent event) -> {
                     dataSourceMap.forEach((name, dataSource) -> {
                         if (!dataSource.isClosed()) dataSource.close();
                     });
                     dataSourceMap.clear();
+                    if (scheduler != null) {
+                        scheduler.shutdownNow();
+                    }
                 });
 
         app.register(new AbstractBinder() {
@@ -138,4 +160,76 @@ public class DataSourceManager extends Addon {
             }
         });
     }
+
+    /**
+     * 数据源连接池的初始连接由 druid asyncInit 在共享的线程池中并发创建，
+     * eager 连接池在启动时初始化并等待初始连接创建完成，超过 initTimeout 毫秒后继续启动，连接在后台继续创建，
+     * 初始化失败的连接池不会注册；
+     * lazy 连接池在第一次获取连接时初始化，初始连接并发创建，获取连接只等待第一个可用连接。
+     *
+     * @return 创建连接的线程池，没有 eager 和 lazy 连接池时为 null
+     */
+    private ScheduledExecutorService initDataSources(Map<String, DruidDataSource> eager,
+                                                     Map<String, DruidDataSource> lazy,
+                                                     Map<String, Long> timeouts) {
+        if (eager.isEmpty() && lazy.isEmpty()) return null;
+
+        int connections = 0;
+        for (DruidDataSource ds : Iterables.concat(eager.values(), lazy.values())) {
+            connections += Math.max(ds.getInitialSize(), 1);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+                Math.min(connections, Runtime.getRuntime().availableProcessors() * 2), r -> {
+                    Thread thread = new Thread(r, "ameba-datasource-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        for (DruidDataSource ds : Iterables.concat(eager.values(), lazy.values())) {
+            ds.setAsyncInit(true);
+            ds.setCreateScheduler(scheduler);
+        }
+
+        long start = System.currentTimeMillis();
+        Map<String, DruidDataSource> started = Maps.newLinkedHashMap();
+        eager.forEach((name, ds) -> {
+            try {
+                ds.init();
+                started.put(name, ds);
+            } catch (SQLException e) {
+                logger.error("初始化数据源 " + name + " 出错", e);
+                unregister(name, ds);
+            }
+        });
+        for (Map.Entry<String, DruidDataSource> entry : started.entrySet()) {
+            String name = entry.getKey();
+            DruidDataSource ds = entry.getValue();
+            Long timeout = timeouts.get(name);
+            long deadline = timeout == null || timeout <= 0 ? Long.MAX_VALUE : start + timeout;
+            try {
+                while (ds.getPoolingCount() + ds.getActiveCount() < ds.getInitialSize()) {
+                    if (ds.getCreateErrorCount() > 0) {
+                        logger.error("初始化数据源 " + name + " 出错", ds.getLastCreateError());
+                        unregister(name, ds);
+                        break;
+                    }
+                    if (System.currentTimeMillis() >= deadline) {
+                        logger.warn("数据源 {} 在 {} 毫秒内未完成初始化，继续在后台初始化", name, timeout);
+                        break;
+                    }
+                    Thread.sleep(10);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        lazy.keySet().forEach(name -> logger.debug("数据源 {} 在第一次获取连接时初始化", name));
+        return scheduler;
+    }
+
+    private void unregister(String name, DruidDataSource ds) {
+        dataSourceMap.remove(name);
+        ds.close();
+    }
 }
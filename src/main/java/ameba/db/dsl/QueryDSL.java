@@ -1,9 +1,13 @@
 package ameba.db.dsl;
 
 import ameba.i18n.Messages;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -14,10 +18,42 @@ import java.util.List;
 public class QueryDSL {
 
     private static final DiagnosticErrorListener ERROR_LISTENER = new DiagnosticErrorListener();
+    /**
+     * Constant <code>DEFAULT_CACHE_SIZE=1000</code>
+     */
+    public static final long DEFAULT_CACHE_SIZE = 1000;
+    private static volatile Cache<String, List<QueryExprMeta>> cache = newCache(DEFAULT_CACHE_SIZE);
 
     private QueryDSL() {
     }
 
+    private static Cache<String, List<QueryExprMeta>> newCache(long size) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(size)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * set max size of the parsed expression cache, the cache is cleared
+     *
+     * @param size max cached expressions, 0 to disable cache
+     * @since 0.1.13
+     */
+    public static void setCacheSize(long size) {
+        cache = newCache(size);
+    }
+
+    /**
+     * hit and miss stats of the parsed expression cache
+     *
+     * @return a {@link com.google.common.cache.CacheStats} object.
+     * @since 0.1.13
+     */
+    public static CacheStats cacheStats() {
+        return cache.stats();
+    }
+
     /**
      * <p>invoke.</p>
      *
@@ -33,12 +69,43 @@ public class QueryDSL {
     }
 
     /**
-     * <p>parse.</p>
+     * parse the expression, the parsed metas are cached by the expression and must not be changed
      *
      * @param expression a {@link java.lang.String} object.
      * @return a {@link java.util.List} object.
      */
     public static List<QueryExprMeta> parse(String expression) {
+        String key = expression == null ? "" : expression;
+        Cache<String, List<QueryExprMeta>> cache = QueryDSL.cache;
+        List<QueryExprMeta> metas = cache.getIfPresent(key);
+        if (metas == null) {
+            metas = QueryExprParser.parse(key);
+            if (metas == null) {
+                metas = parseExpression(key);
+            }
+            metas = freeze(metas);
+            cache.put(key, metas);
+        }
+        return metas;
+    }
+
+    // cached metas are shared by requests
+    private static List<QueryExprMeta> freeze(List<QueryExprMeta> metas) {
+        for (QueryExprMeta meta : metas) {
+            List<QueryExprMeta.Val<?>> arguments = meta.arguments();
+            if (arguments != null) {
+                for (QueryExprMeta.Val<?> argument : arguments) {
+                    if (argument.object() instanceof QueryExprMeta) {
+                        freeze(Collections.singletonList(argument.meta()));
+                    }
+                }
+                meta.arguments(Collections.unmodifiableList(arguments));
+            }
+        }
+        return Collections.unmodifiableList(metas);
+    }
+
+    private static List<QueryExprMeta> parseExpression(String expression) {
         QueryParser parser = parser(tokens(expression));
         try {
             return parse(parser);
@@ -0,0 +1,445 @@
+package ameba.db.dsl;
+
+import ameba.db.dsl.QueryExprMeta.Val;
+import com.google.common.collect.Lists;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Hand written lexer and recursive descent parser of <code>Query.g4</code>.</p>
+ * <p>
+ * Produce the same {@link ameba.db.dsl.QueryExprMeta} as {@link ameba.db.dsl.QueryExprListener} on the
+ * ANTLR parse tree, without the adaptive prediction and the parse tree. It's conservative, the input it
+ * can not parse (mostly syntax errors) returns null and is parsed by ANTLR, so the errors and their
+ * positions are reported by ANTLR as before.
+ * </p>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+final class QueryExprParser {
+    // token types
+    private static final int EOF = 0;
+    private static final int DOT = 1;
+    private static final int LPAREN = 2;
+    private static final int RPAREN = 3;
+    private static final int NULL = 4;
+    private static final int BOOLEAN = 5;
+    private static final int STRING = 6;
+    private static final int DECIMAL = 7;
+    private static final int IDENTIFIER = 8;
+    private static final int COMMA = 9;
+
+    private static final Fail FAIL = new Fail();
+
+    private final String input;
+    private int[] types = new int[16];
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int count;
+    private int pos;
+
+    // the listener state, see QueryExprListener
+    private final List<QueryExprMeta> metas = Lists.newArrayList();
+    private QueryExprMeta current;
+
+    private QueryExprParser(String input) {
+        this.input = input;
+    }
+
+    /**
+     * parse expression
+     *
+     * @param expression expression
+     * @return metas, null if the expression should be parsed by ANTLR
+     */
+    static List<QueryExprMeta> parse(String expression) {
+        QueryExprParser parser = new QueryExprParser(expression);
+        try {
+            parser.tokenize();
+            return parser.query();
+        } catch (Fail e) {
+            return null;
+        }
+    }
+
+    // lexer, same longest match and rule priority as ANTLR lexer, token recognition errors are left to ANTLR
+
+    private void tokenize() {
+        int length = input.length();
+        int i = 0;
+        while (i < length) {
+            char c = input.charAt(i);
+            int end;
+            switch (c) {
+                case '(':
+                    add(LPAREN, i, i + 1);
+                    i++;
+                    continue;
+                case ')':
+                    add(RPAREN, i, i + 1);
+                    i++;
+                    continue;
+                case '!':
+                case ',':
+                    add(COMMA, i, i + 1);
+                    i++;
+                    continue;
+                case '.':
+                    end = digits(i + 1);
+                    if (end > i + 1) {
+                        add(DECIMAL, i, end);
+                        i = end;
+                    } else {
+                        add(DOT, i, i + 1);
+                        i++;
+                    }
+                    continue;
+                case '\'':
+                    // a single QUOTE token is always a syntax error
+                    end = string(i);
+                    add(STRING, i, end);
+                    i = end;
+                    continue;
+                case '+':
+                case '-':
+                    end = signedNumber(i);
+                    add(DECIMAL, i, end);
+                    i = end;
+                    continue;
+                default:
+                    if (c >= '0' && c <= '9') {
+                        end = number(i);
+                        add(DECIMAL, i, end);
+                        i = end;
+                    } else if (isLetter(c)) {
+                        end = i + 1;
+                        while (end < length && isLetterOrDigit(input.charAt(end))) {
+                            end++;
+                        }
+                        add(identifierType(i, end), i, end);
+                        i = end;
+                    } else {
+                        // no token starts with it, ANTLR reports and skips it
+                        i++;
+                    }
+            }
+        }
+        add(EOF, length, length);
+    }
+
+    private void add(int type, int start, int end) {
+        if (count == types.length) {
+            int size = count * 2;
+            types = Arrays.copyOf(types, size);
+            starts = Arrays.copyOf(starts, size);
+            ends = Arrays.copyOf(ends, size);
+        }
+        types[count] = type;
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '$' || c == '_';
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return isLetter(c) || (c >= '0' && c <= '9');
+    }
+
+    // keywords win identifiers of the same length
+    private int identifierType(int start, int end) {
+        switch (end - start) {
+            case 1:
+                char c = input.charAt(start);
+                if (c == 'N') return NULL;
+                if (c == 'T' || c == 'F') return BOOLEAN;
+                break;
+            case 3:
+                if (input.startsWith("nil", start)) return NULL;
+                break;
+            case 4:
+                if (input.startsWith("null", start)) return NULL;
+                if (input.startsWith("true", start)) return BOOLEAN;
+                break;
+            case 5:
+                if (input.startsWith("false", start)) return BOOLEAN;
+                break;
+            default:
+        }
+        return IDENTIFIER;
+    }
+
+    private int digits(int i) {
+        while (i < input.length() && isDigit(input.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // DecimalIntegerLiteral ('.' DecimalDigit*)?, i at a digit
+    private int number(int i) {
+        int end = input.charAt(i) == '0' ? i + 1 : digits(i + 1);
+        if (end < input.length() && input.charAt(end) == '.') {
+            end = digits(end + 1);
+        }
+        return end;
+    }
+
+    // [+-] DecimalIntegerLiteral ('.' DecimalDigit*)? | [+-] '.' DecimalDigit+
+    private int signedNumber(int i) {
+        int next = i + 1;
+        if (next < input.length()) {
+            char c = input.charAt(next);
+            if (isDigit(c)) {
+                return number(next);
+            }
+            if (c == '.') {
+                int end = digits(next + 1);
+                if (end > next + 1) {
+                    return end;
+                }
+            }
+        }
+        // token recognition error
+        throw FAIL;
+    }
+
+    // QUOTE (~'\'' | COMMA QUOTE)* QUOTE, longest match
+    // the match can only reach i and i + 1 (over an escaped quote) from i - 1, so only they are tracked
+    private int string(int start) {
+        int length = input.length();
+        boolean reached = true;
+        boolean escaped = false;
+        int end = -1;
+        for (int i = start + 1; i < length && (reached || escaped); i++) {
+            boolean next = escaped;
+            escaped = false;
+            if (reached) {
+                char c = input.charAt(i);
+                if (c == '\'') {
+                    end = i + 1;
+                } else {
+                    next = true;
+                    if ((c == '!' || c == ',') && i + 1 < length && input.charAt(i + 1) == '\'') {
+                        escaped = true;
+                    }
+                }
+            }
+            reached = next;
+        }
+        if (end == -1) throw FAIL;
+        return end;
+    }
+
+    private String text(int token) {
+        return input.substring(starts[token], ends[token]);
+    }
+
+    private String stringText(int token) {
+        return input.substring(starts[token] + 1, ends[token] - 1).replace("!'", "'");
+    }
+
+    // parser
+
+    private int type(int offset) {
+        int index = pos + offset;
+        return index < count ? types[index] : EOF;
+    }
+
+    private int expect(int type) {
+        if (types[pos] != type) throw FAIL;
+        return pos++;
+    }
+
+    private List<QueryExprMeta> query() {
+        if (types[0] == EOF) {
+            return metas;
+        }
+        while (type(0) != EOF) {
+            sourceElement(null);
+        }
+        return metas;
+    }
+
+    // sourceElement : expression ('.' expression)?
+    private void sourceElement(QueryExprMeta parent) {
+        QueryExprMeta meta = QueryExprMeta.create();
+        current = meta;
+        if (parent == null) {
+            metas.add(meta);
+        } else {
+            meta.parent(parent.arguments(meta));
+        }
+
+        int id = expect(IDENTIFIER);
+        if (type(0) == LPAREN) {
+            method(id, meta);
+            if (type(0) == DOT) {
+                pos++;
+                expression(meta);
+            }
+        } else {
+            // greedy field, the last '.' Identifier '(' is the method
+            StringBuilder field = new StringBuilder(text(id));
+            while (type(0) == DOT && type(1) == IDENTIFIER && type(2) != LPAREN) {
+                field.append('.').append(text(pos + 1));
+                pos += 2;
+            }
+            exitFieldExpression(field.toString());
+            if (type(0) == DOT) {
+                if (type(1) != IDENTIFIER) throw FAIL;
+                pos++;
+                method(pos++, meta);
+            }
+        }
+
+        exitSourceElement();
+    }
+
+    // expression after '.' of source element, nothing can follow it but next source element
+    private void expression(QueryExprMeta meta) {
+        int id = expect(IDENTIFIER);
+        if (type(0) == LPAREN) {
+            method(id, meta);
+        } else {
+            StringBuilder field = new StringBuilder(text(id));
+            while (type(0) == DOT) {
+                if (type(1) != IDENTIFIER || type(2) == LPAREN) throw FAIL;
+                field.append('.').append(text(pos + 1));
+                pos += 2;
+            }
+            exitFieldExpression(field.toString());
+        }
+    }
+
+    // method : identifierName arguments
+    private void method(int id, QueryExprMeta meta) {
+        checkCurrent();
+        current.operator(text(id));
+        expect(LPAREN);
+        if (type(0) != RPAREN) {
+            if (isValueList()) {
+                values();
+            } else {
+                while (type(0) != RPAREN) {
+                    if (type(0) != IDENTIFIER) throw FAIL;
+                    sourceElement(meta);
+                }
+            }
+        }
+        expect(RPAREN);
+    }
+
+    // argumentList first alternative (COMMA? (literal | identifierVal)+ COMMA?)+ wins if both match
+    private boolean isValueList() {
+        int commas = 0;
+        boolean value = false;
+        for (int i = pos; i < count; i++) {
+            switch (types[i]) {
+                case COMMA:
+                    commas++;
+                    if (commas > (value ? 2 : 1)) return false;
+                    break;
+                case NULL:
+                case BOOLEAN:
+                case STRING:
+                case DECIMAL:
+                case IDENTIFIER:
+                    value = true;
+                    commas = 0;
+                    break;
+                case RPAREN:
+                    return value && commas <= 1;
+                default:
+                    return false;
+            }
+        }
+        return false;
+    }
+
+    private void values() {
+        checkCurrent();
+        while (type(0) != RPAREN) {
+            int token = pos++;
+            switch (types[token]) {
+                case NULL:
+                    current.arguments(Val.of());
+                    break;
+                case BOOLEAN:
+                    current.arguments(Val.ofBool(text(token)));
+                    break;
+                case DECIMAL:
+                    current.arguments(Val.ofDecimal(text(token)));
+                    break;
+                case STRING:
+                    current.arguments(Val.of(stringText(token)));
+                    break;
+                case IDENTIFIER:
+                    current.arguments(Val.of(text(token)));
+                    break;
+                default:
+                    // COMMA
+            }
+        }
+    }
+
+    private void exitFieldExpression(String field) {
+        checkCurrent();
+        current.field(field);
+    }
+
+    // the listener fails with NullPointerException after a nested identifier is replaced, leave it to ANTLR
+    private void checkCurrent() {
+        if (current == null) throw FAIL;
+    }
+
+    // same as QueryExprListener#exitSourceElement
+    private void exitSourceElement() {
+        if (current != null) {
+            String op = current.operator();
+            if (op == null) {
+                String co = current.field();
+                if (co != null && current.arguments() == null) {
+                    int offset = co.lastIndexOf('.');
+                    if (offset == -1) {
+                        if (current.parent() == null) {
+                            current.operator(co);
+                            current.field(null);
+                        } else {
+                            List<Val<?>> args = current.parent().arguments();
+                            int argOffset = -1;
+                            for (int i = 0; i < args.size(); i++) {
+                                Val val = args.get(i);
+                                if (current.equals(val.object())) {
+                                    argOffset = i;
+                                    break;
+                                }
+                            }
+                            if (argOffset != -1) {
+                                args.set(argOffset, Val.of(co));
+                                current = null;
+                            }
+                        }
+                    } else {
+                        current.field(co.substring(0, offset));
+                        current.operator(co.substring(offset + 1));
+                    }
+                }
+            }
+        }
+    }
+
+    private static class Fail extends RuntimeException {
+        Fail() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -4,7 +4,9 @@ import ameba.container.event.ShutdownEvent;
 import ameba.core.Application;
 import ameba.db.DataSourceManager;
 import ameba.db.PersistenceExceptionMapper;
+import ameba.db.ebean.filter.Filters;
 import ameba.db.ebean.internal.ModelInterceptor;
+import ameba.db.ebean.internal.ModelResultCache;
 import ameba.db.ebean.jackson.JacksonEbeanModule;
 import ameba.db.ebean.jackson.JsonIOExceptionMapper;
 import ameba.db.ebean.migration.EbeanMigration;
@@ -17,6 +19,7 @@ import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
 import io.ebean.EbeanServer;
 import io.ebean.EbeanServerFactory;
 import io.ebean.annotation.PersistBatch;
@@ -40,6 +43,12 @@ import javax.ws.rs.core.FeatureContext;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
  * <p>EbeanFeature class.</p>
@@ -81,6 +90,46 @@ public class EbeanFeature implements Feature {
      * Constant <code>FILTER_PARAM_NAME="model.query.param.filter"</code>
      */
     public static final String FILTER_PARAM_NAME = "model.query.param.filter";
+    /**
+     * Constant <code>CURSOR_PARAM_NAME="model.query.param.cursor"</code>
+     */
+    public static final String CURSOR_PARAM_NAME = "model.query.param.cursor";
+    /**
+     * Constant <code>CURSOR_HEADER_NAME="model.query.param.cursor.header"</code>
+     */
+    public static final String CURSOR_HEADER_NAME = "model.query.param.cursor.header";
+    /**
+     * Constant <code>STREAM_PARAM_NAME="model.query.param.stream"</code>
+     */
+    public static final String STREAM_PARAM_NAME = "model.query.param.stream";
+    /**
+     * Constant <code>STREAM_ENABLED="model.query.stream.enabled"</code>
+     */
+    public static final String STREAM_ENABLED = "model.query.stream.enabled";
+    /**
+     * Constant <code>STREAM_MAX_PER_PAGE_PARAM_NAME="model.query.stream.max_per_page"</code>
+     */
+    public static final String STREAM_MAX_PER_PAGE_PARAM_NAME = "model.query.stream.max_per_page";
+    /**
+     * Constant <code>COUNT_CACHE_TTL="model.query.count.cache.ttl"</code>
+     */
+    public static final String COUNT_CACHE_TTL = "model.query.count.cache.ttl";
+    /**
+     * Constant <code>COUNT_CACHE_SIZE="model.query.count.cache.size"</code>
+     */
+    public static final String COUNT_CACHE_SIZE = "model.query.count.cache.size";
+    /**
+     * Constant <code>RESULT_CACHE_ENTRIES="model.query.result.cache.entries"</code>
+     */
+    public static final String RESULT_CACHE_ENTRIES = "model.query.result.cache.entries";
+    /**
+     * Constant <code>RESULT_CACHE_BYTES="model.query.result.cache.bytes"</code>
+     */
+    public static final String RESULT_CACHE_BYTES = "model.query.result.cache.bytes";
+    /**
+     * Constant <code>RESULT_CACHE_TTL="model.query.result.cache.ttl"</code>
+     */
+    public static final String RESULT_CACHE_TTL = "model.query.result.cache.ttl";
     private static final Logger logger = LoggerFactory.getLogger(EbeanFeature.class);
     private static final List<EbeanServer> servers = Lists.newArrayList();
     @Inject
@@ -106,6 +155,7 @@ public class EbeanFeature implements Feature {
         }
 
         context.register(ModelInterceptor.class)
+                .register(ModelResultCache.CaptureInterceptor.class)
                 .register(JsonIOExceptionMapper.class);
 
         final Configuration appConfig = context.getConfiguration();
@@ -116,6 +166,7 @@ public class EbeanFeature implements Feature {
         Properties cp = new Properties();
         cp.putAll(appConfig.getProperties());
         containerConfig.loadFromProperties(cp);
+        List<ServerConfig> configs = Lists.newArrayList();
         for (final String name : DataSourceManager.getDataSourceNames()) {
             final ServerConfig config = new ServerConfig() {
                 @Override
@@ -148,13 +199,10 @@ public class EbeanFeature implements Feature {
             if (classes != null) {
                 classes.forEach(config::addClass);
             }
+            configs.add(config);
+        }
 
-            logger.debug(Messages.get("info.db.connect", name));
-
-            final EbeanServer server = EbeanServerFactory.create(config);
-
-            logger.info(Messages.get("info.db.connected", name, appConfig.getProperty("db." + name + ".url")));
-
+        for (EbeanServer server : createServers(configs, appConfig)) {
             JacksonEbeanModule module = new JacksonEbeanModule(server, locator);
 
             objectMapper.registerModule(module);
@@ -195,4 +243,59 @@ public class EbeanFeature implements Feature {
         });
         return true;
     }
+
+    /**
+     * create servers concurrently, deployment parsing, ddl and connection checking of
+     * data sources are independent, the servers are returned in the order of configs
+     */
+    private List<EbeanServer> createServers(List<ServerConfig> configs, Configuration appConfig) {
+        int parallelism = Math.min(configs.size(), getParallelism(appConfig));
+        if (parallelism < 2) {
+            return configs.stream()
+                    .map(config -> createServer(config, appConfig))
+                    .collect(Collectors.toList());
+        }
+
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "ameba-ebean-" + counter.incrementAndGet());
+            thread.setContextClassLoader(loader);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<CompletableFuture<EbeanServer>> futures = configs.stream()
+                    .map(config -> CompletableFuture.supplyAsync(() -> createServer(config, appConfig), executor))
+                    .collect(Collectors.toList());
+            return futures.stream()
+                    .map(CompletableFuture::join)
+                    .collect(Collectors.toList());
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private int getParallelism(Configuration appConfig) {
+        Object value = appConfig.getProperty("app.init.parallelism");
+        Integer parallelism = value == null ? null : Ints.tryParse(value.toString());
+        return parallelism == null ? 1 : parallelism;
+    }
+
+    private EbeanServer createServer(ServerConfig config, Configuration appConfig) {
+        String name = config.getName();
+        logger.debug(Messages.get("info.db.connect", name));
+
+        EbeanServer server = EbeanServerFactory.create(config);
+        Filters.indexBeanTypes(server);
+
+        logger.info(Messages.get("info.db.connected", name, appConfig.getProperty("db." + name + ".url")));
+        return server;
+    }
 }
@@ -11,7 +11,12 @@ import ameba.message.filtering.EntityFieldsUtils;
 import ameba.message.internal.BeanPathProperties;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.SerializerProvider;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Sets;
 import io.ebean.FetchPath;
 import io.ebean.OrderBy;
@@ -21,6 +26,7 @@ import io.ebean.bean.EntityBeanIntercept;
 import io.ebeaninternal.api.SpiEbeanServer;
 import io.ebeaninternal.api.SpiExpression;
 import io.ebeaninternal.api.SpiExpressionList;
+import io.ebeaninternal.api.SpiExpressionValidation;
 import io.ebeaninternal.api.SpiQuery;
 import io.ebeaninternal.server.deploy.BeanDescriptor;
 import org.apache.commons.lang3.StringUtils;
@@ -42,7 +48,12 @@ public class EbeanUtils {
      * Constant <code>PATH_PROPS_PARSED="EbeanUtils.class + .BeanPathProperties"</code>
      */
     public static final String PATH_PROPS_PARSED = EbeanUtils.class + ".BeanPathProperties";
-
+    private static final long SHAPE_CACHE_SIZE = 512;
+    /**
+     * unknown properties by query shape of bean descriptor, a reloaded application has new descriptors
+     */
+    private static final Map<BeanDescriptor<?>, Cache<List<Object>, Set<String>>> SHAPE_CACHE =
+            new MapMaker().weakKeys().makeMap();
 
     private EbeanUtils() {
     }
@@ -179,6 +190,7 @@ public class EbeanUtils {
 
     /**
      * <p>checkQuery.</p>
+     * The unknown properties are cached by the query shape, the property paths of where, having and order by.
      *
      * @param query         a {@link io.ebeaninternal.api.SpiQuery} object.
      * @param whitelist     a {@link java.util.Set} object.
@@ -187,13 +199,61 @@ public class EbeanUtils {
      */
     public static void checkQuery(SpiQuery<?> query, Set<String> whitelist,
                                   Set<String> blacklist, boolean ignoreUnknown) {
-        checkQuery(
-                query,
-                new ListExpressionValidation(
-                        query.getBeanDescriptor(), whitelist, blacklist
-                ),
-                ignoreUnknown
+        BeanDescriptor<?> descriptor = query.getBeanDescriptor();
+        // the shape is the validated property paths, bound values are not a part of it
+        List<String> properties = getQueryProperties(query);
+        List<Object> shape = ImmutableList.of(
+                whitelist == null ? ImmutableSet.of() : ImmutableSet.copyOf(whitelist),
+                blacklist == null ? ImmutableSet.of() : ImmutableSet.copyOf(blacklist),
+                properties
         );
+        Cache<List<Object>, Set<String>> cache = SHAPE_CACHE.computeIfAbsent(descriptor,
+                d -> CacheBuilder.newBuilder().maximumSize(SHAPE_CACHE_SIZE).build());
+        Set<String> invalid = cache.getIfPresent(shape);
+        if (invalid == null) {
+            ListExpressionValidation validation = new ListExpressionValidation(descriptor, whitelist, blacklist);
+            for (String property : properties) {
+                validation.validate(property);
+            }
+            invalid = ImmutableSet.copyOf(validation.getUnknownProperties());
+            cache.put(shape, invalid);
+        }
+
+        if (invalid.isEmpty()) {
+            return;
+        }
+        if (!ignoreUnknown) {
+            UnprocessableEntityException.throwQuery(invalid);
+        }
+        // remove the unknown expressions, every property is known to be valid or not
+        Set<String> valid = Sets.newHashSet(properties);
+        valid.removeAll(invalid);
+        checkQuery(query, new ListExpressionValidation(descriptor, valid, invalid), true);
+    }
+
+    private static List<String> getQueryProperties(SpiQuery<?> query) {
+        List<String> properties = Lists.newArrayList();
+        SpiExpressionValidation recorder = new SpiExpressionValidation(query.getBeanDescriptor()) {
+            @Override
+            public void validate(String propertyName) {
+                properties.add(propertyName);
+            }
+        };
+        for (SpiExpressionList<?> expressions : Arrays.asList(query.getWhereExpressions(),
+                query.getHavingExpressions())) {
+            if (expressions != null) {
+                for (SpiExpression expression : expressions.getUnderlyingList()) {
+                    expression.validate(recorder);
+                }
+            }
+        }
+        OrderBy<?> orderBy = query.getOrderBy();
+        if (orderBy != null) {
+            for (Property property : orderBy.getProperties()) {
+                properties.add(property.getProperty());
+            }
+        }
+        return properties;
     }
 
     /**
@@ -3,6 +3,8 @@ package ameba.db.ebean.filter;
 import ameba.db.dsl.*;
 import ameba.db.dsl.QueryExprMeta.Val;
 import ameba.i18n.Messages;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import io.ebean.Expression;
 import io.ebeaninternal.api.SpiEbeanServer;
 import io.ebeaninternal.api.SpiQuery;
@@ -10,6 +12,7 @@ import org.glassfish.jersey.internal.inject.InjectionManager;
 import org.glassfish.jersey.internal.inject.Providers;
 
 import java.util.Arrays;
+import java.util.Map;
 
 /**
  * <p>EbeanExprInvoker class.</p>
@@ -17,10 +20,11 @@ import java.util.Arrays;
  * @author icode
  */
 public class EbeanExprInvoker extends QueryExprInvoker<Expression> {
-
     private SpiEbeanServer server;
     private InjectionManager manager;
     private SpiQuery<?> query;
+    // ranked transformers of the query, they are looked up once for all expressions and arguments
+    private final Map<Class<?>, Transformer[]> transformers = Maps.newHashMap();
 
     /**
      * <p>Constructor for EbeanExprInvoker.</p>
@@ -82,6 +86,7 @@ public class EbeanExprInvoker extends QueryExprInvoker<Expression> {
 
     /**
      * <p>getTransformer.</p>
+     * The ranked transformers are looked up once for the query.
      *
      * @param transformerClass a {@link java.lang.Class} object.
      * @param <R>              Result.
@@ -89,7 +94,13 @@ public class EbeanExprInvoker extends QueryExprInvoker<Expression> {
      * @return a {@link java.lang.Iterable} object.
      */
     protected <R, T extends Transformer<Transformed<R>>> Iterable<T> getTransformer(Class<T> transformerClass) {
-        return Providers.getAllRankedSortedProviders(manager, transformerClass);
+        return Arrays.asList(getTransformers(transformerClass));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Transformer> T[] getTransformers(Class<T> transformerClass) {
+        return (T[]) transformers.computeIfAbsent(transformerClass, c -> Iterables.toArray(
+                Providers.getAllRankedSortedProviders(manager, transformerClass), transformerClass));
     }
 
     /**
@@ -1,10 +1,16 @@
 package ameba.db.ebean.filter;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
 import io.ebean.EbeanServer;
 import io.ebean.Query;
 import io.ebeaninternal.api.SpiEbeanServer;
 import io.ebeaninternal.server.deploy.BeanDescriptor;
 
+import java.util.Locale;
+import java.util.Map;
+
 /**
  * <p>Filters class.</p>
  *
@@ -12,11 +18,17 @@ import io.ebeaninternal.server.deploy.BeanDescriptor;
  *
  */
 public class Filters {
+    /**
+     * bean type by lower case name of server, a reloaded application has new servers
+     */
+    private static final Map<SpiEbeanServer, Map<String, Class>> BEAN_TYPES = new MapMaker().weakKeys().makeMap();
+
     private Filters() {
     }
 
     /**
      * <p>getBeanTypeByName.</p>
+     * Match the full class name, the simple class name, then the table name, ignore case.
      *
      * @param className a {@link java.lang.String} object.
      * @param server    a {@link io.ebeaninternal.api.SpiEbeanServer} object.
@@ -24,14 +36,37 @@ public class Filters {
      */
     public static Class getBeanTypeByName(String className, SpiEbeanServer server) {
         if (className == null) return null;
+        return BEAN_TYPES.computeIfAbsent(server, Filters::buildBeanTypes)
+                .get(className.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * build the bean type name index of the server
+     *
+     * @param server a {@link io.ebeaninternal.api.SpiEbeanServer} object.
+     * @since 0.1.13
+     */
+    public static void indexBeanTypes(EbeanServer server) {
+        if (server instanceof SpiEbeanServer) {
+            BEAN_TYPES.put((SpiEbeanServer) server, buildBeanTypes((SpiEbeanServer) server));
+        }
+    }
+
+    // the first descriptor wins, as the descriptor order
+    private static Map<String, Class> buildBeanTypes(SpiEbeanServer server) {
+        Map<String, Class> types = Maps.newHashMap();
         for (BeanDescriptor descriptor : server.getBeanDescriptors()) {
             Class beanClass = descriptor.getBeanType();
-            if (beanClass.getName().equalsIgnoreCase(className)
-                    || beanClass.getSimpleName().equalsIgnoreCase(className)) {
-                return beanClass;
+            types.putIfAbsent(beanClass.getName().toLowerCase(Locale.ENGLISH), beanClass);
+            types.putIfAbsent(beanClass.getSimpleName().toLowerCase(Locale.ENGLISH), beanClass);
+        }
+        for (BeanDescriptor descriptor : server.getBeanDescriptors()) {
+            String table = descriptor.getBaseTable();
+            if (table != null) {
+                types.putIfAbsent(table.toLowerCase(Locale.ENGLISH), descriptor.getBeanType());
             }
         }
-        return null;
+        return ImmutableMap.copyOf(types);
     }
 
     /**
@@ -1,5 +1,8 @@
 package ameba.db.ebean.filter;
 
+import ameba.db.dsl.QueryDSL;
+import com.google.common.primitives.Longs;
+
 import javax.ws.rs.core.Configuration;
 import javax.ws.rs.core.Feature;
 import javax.ws.rs.core.FeatureContext;
@@ -11,12 +14,22 @@ import javax.ws.rs.core.FeatureContext;
  *
  */
 public class QueryDslFeature implements Feature {
+    /**
+     * Constant <code>CACHE_SIZE_KEY="query.dsl.cache.size"</code>
+     */
+    public static final String CACHE_SIZE_KEY = "query.dsl.cache.size";
+
     /**
      * {@inheritDoc}
      */
     @Override
     public boolean configure(FeatureContext context) {
         Configuration cfg = context.getConfiguration();
+        Object cacheSize = cfg.getProperty(CACHE_SIZE_KEY);
+        if (cacheSize != null) {
+            Long size = Longs.tryParse(cacheSize.toString().trim());
+            QueryDSL.setCacheSize(size == null ? QueryDSL.DEFAULT_CACHE_SIZE : size);
+        }
         if (!cfg.isRegistered(CommonExprTransformer.class))
             context.register(CommonExprTransformer.class);
         if (!cfg.isRegistered(CommonExprArgTransformer.class))
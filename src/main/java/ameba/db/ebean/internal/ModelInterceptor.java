@@ -8,6 +8,8 @@ import ameba.db.ebean.filter.WhereExprApplier;
 import ameba.db.model.Finder;
 import ameba.message.filtering.EntityFieldsFilteringFeature;
 import ameba.message.internal.BeanPathProperties;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Longs;
 import io.ebean.*;
 import io.ebean.bean.BeanCollection;
 import io.ebean.common.BeanList;
@@ -26,11 +28,14 @@ import javax.ws.rs.Priorities;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Configuration;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Link;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.UriInfo;
 import javax.ws.rs.ext.WriterInterceptor;
 import javax.ws.rs.ext.WriterInterceptorContext;
 import java.io.IOException;
+import java.net.URI;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
@@ -54,8 +59,16 @@ public class ModelInterceptor implements WriterInterceptor {
     private static String REQ_TOTAL_COUNT_PARAM_NAME = "req_count";
     private static String REQ_TOTAL_COUNT_HEADER_NAME = "X-Total-Count";
     private static String FILTER_PARAM_NAME = "filter";
+    private static String CURSOR_PARAM_NAME = "cursor";
+    private static String CURSOR_HEADER_NAME = "X-Cursor";
+    private static String STREAM_PARAM_NAME = "stream";
+    private static final String REQ_TOTAL_COUNT_APPROX = "approx";
+    private static final long DEFAULT_COUNT_CACHE_SIZE = 1000;
+    private static final long DEFAULT_RESULT_CACHE_BYTES = 16 * 1024 * 1024;
     private static Integer DEFAULT_PER_PAGE = SYS_DEFAULT_PER_PAGE;
     private static int MAX_PER_PAGE = 1000;
+    private static Integer STREAM_MAX_PER_PAGE = null;
+    private static boolean STREAM_ENABLED = false;
     @Context
     private Provider<Configuration> configurationProvider;
     @Context
@@ -126,6 +139,36 @@ public class ModelInterceptor implements WriterInterceptor {
         return FILTER_PARAM_NAME;
     }
 
+    /**
+     * <p>getCursorParamName.</p>
+     *
+     * @return a {@link java.lang.String} object.
+     * @since 0.1.13
+     */
+    public static String getCursorParamName() {
+        return CURSOR_PARAM_NAME;
+    }
+
+    /**
+     * <p>getCursorHeaderName.</p>
+     *
+     * @return a {@link java.lang.String} object.
+     * @since 0.1.13
+     */
+    public static String getCursorHeaderName() {
+        return CURSOR_HEADER_NAME;
+    }
+
+    /**
+     * <p>getStreamParamName.</p>
+     *
+     * @return a {@link java.lang.String} object.
+     * @since 0.1.13
+     */
+    public static String getStreamParamName() {
+        return STREAM_PARAM_NAME;
+    }
+
     /**
      * <p>getDefaultPerPage.</p>
      *
@@ -246,6 +289,10 @@ public class ModelInterceptor implements WriterInterceptor {
 
     /**
      * <p>fetchRowCount.</p>
+     * <br>
+     * ?req_count=true, exact count, cached if <code>model.query.count.cache.ttl</code> is set
+     * <br>
+     * ?req_count=approx, approximate count by the table statistics if supported
      *
      * @param queryParams a {@link javax.ws.rs.core.MultivaluedMap} object.
      * @param query       a {@link io.ebean.Query} object.
@@ -254,11 +301,65 @@ public class ModelInterceptor implements WriterInterceptor {
     public static FutureRowCount fetchRowCount(MultivaluedMap<String, String> queryParams, Query query) {
         String reqTotalCount = getSingleParam(queryParams.get(REQ_TOTAL_COUNT_PARAM_NAME));
         if (reqTotalCount != null && !"false".equalsIgnoreCase(reqTotalCount) && !"0".equals(reqTotalCount)) {
-            return query.findFutureCount();
+            if (REQ_TOTAL_COUNT_APPROX.equalsIgnoreCase(reqTotalCount)) {
+                FutureRowCount count = RowCounts.approximate((SpiQuery<?>) query);
+                if (count != null) {
+                    return count;
+                }
+            }
+            return RowCounts.count(queryParams, Sets.newHashSet(
+                    FIELDS_PARAM_NAME,
+                    SORT_PARAM_NAME,
+                    PAGE_PARAM_NAME,
+                    PER_PAGE_PARAM_NAME,
+                    REQ_TOTAL_COUNT_PARAM_NAME,
+                    CURSOR_PARAM_NAME,
+                    STREAM_PARAM_NAME
+            ), (SpiQuery<?>) query);
         }
         return null;
     }
 
+    /**
+     * <p>getStreamMaxPerPage.</p>
+     *
+     * @return max rows of streaming result, -1 is unlimited, default is the max per page
+     */
+    public static int getStreamMaxPerPage() {
+        return STREAM_MAX_PER_PAGE == null ? MAX_PER_PAGE : STREAM_MAX_PER_PAGE;
+    }
+
+    /**
+     * <p>isStreamEnabled.</p>
+     *
+     * @return true if <code>model.query.stream.enabled=true</code>, default is false
+     * @since 0.1.13
+     */
+    public static boolean isStreamEnabled() {
+        return STREAM_ENABLED;
+    }
+
+    /**
+     * <p>isStream.</p>
+     * <br>
+     * ?stream=true, write the list by {@link QueryStream}, only if the streaming is enabled
+     *
+     * @param queryParams a {@link javax.ws.rs.core.MultivaluedMap} object.
+     * @return true if the list is streaming
+     * @since 0.1.13
+     */
+    public static boolean isStream(MultivaluedMap<String, String> queryParams) {
+        if (!STREAM_ENABLED) {
+            return false;
+        }
+        List<String> stream = queryParams.get(STREAM_PARAM_NAME);
+        if (stream == null) {
+            return false;
+        }
+        String value = getSingleParam(stream);
+        return value == null || (!"false".equalsIgnoreCase(value) && !"0".equals(value));
+    }
+
     /**
      * <p>applyPageList.</p>
      *
@@ -277,6 +378,10 @@ public class ModelInterceptor implements WriterInterceptor {
 
     /**
      * <p>applyPageConfig.</p>
+     * <br>
+     * ?page=2&amp;per_page=20
+     * <br>
+     * ?cursor=&amp;per_page=20, keyset pagination, the next cursor is in {@link #applyCursorHeader}
      *
      * @param queryParams a {@link javax.ws.rs.core.MultivaluedMap} object.
      * @param query a {@link io.ebean.Query} object.
@@ -292,12 +397,21 @@ public class ModelInterceptor implements WriterInterceptor {
             if (maxRows <= 0) {
                 maxRows = SYS_DEFAULT_PER_PAGE;
             }
-            if (MAX_PER_PAGE != -1 && maxRows > MAX_PER_PAGE) {
-                maxRows = MAX_PER_PAGE;
+            // streaming result has it's own limit, it holds a connection until the client read all rows
+            int maxPerPage = isStream(queryParams) ? getStreamMaxPerPage() : MAX_PER_PAGE;
+            if (maxPerPage != -1 && maxRows > maxPerPage) {
+                maxRows = maxPerPage;
             }
             query.setMaxRows(maxRows);
         }
 
+        List<String> cursor = queryParams.get(CURSOR_PARAM_NAME);
+        if (cursor != null) {
+            // keyset pagination, page is ignored
+            QueryCursor.apply((SpiQuery<?>) query, getSingleParam(cursor));
+            return;
+        }
+
         Integer firstRow = getSingleIntegerParam(queryParams.get(PAGE_PARAM_NAME));
         if (firstRow != null && maxRows != null) {
             if (firstRow < 1) {
@@ -398,6 +512,28 @@ public class ModelInterceptor implements WriterInterceptor {
         }
     }
 
+    /**
+     * set the next cursor header and link header in keyset pagination
+     *
+     * @param uriInfo      a {@link javax.ws.rs.core.UriInfo} object.
+     * @param headerParams a {@link javax.ws.rs.core.MultivaluedMap} object.
+     * @param query        a {@link io.ebean.Query} object.
+     * @param list         beans of the page
+     * @since 0.1.13
+     */
+    public static void applyCursorHeader(UriInfo uriInfo, MultivaluedMap<String, Object> headerParams,
+                                         Query query, List list) {
+        if (!uriInfo.getQueryParameters().containsKey(CURSOR_PARAM_NAME)) {
+            return;
+        }
+        String next = QueryCursor.next((SpiQuery<?>) query, list);
+        if (next != null) {
+            headerParams.putSingle(CURSOR_HEADER_NAME, next);
+            URI uri = uriInfo.getRequestUriBuilder().replaceQueryParam(CURSOR_PARAM_NAME, next).build();
+            headerParams.add(HttpHeaders.LINK, Link.fromUri(uri).rel("next").build());
+        }
+    }
+
     @PostConstruct
     private void init() {
         Configuration configuration = configurationProvider.get();
@@ -422,6 +558,31 @@ public class ModelInterceptor implements WriterInterceptor {
         final String filterParamName = (String) configuration.getProperty(EbeanFeature.FILTER_PARAM_NAME);
         FILTER_PARAM_NAME = StringUtils.isNotBlank(filterParamName) ? filterParamName : FILTER_PARAM_NAME;
 
+        final String cursorParamName = (String) configuration.getProperty(EbeanFeature.CURSOR_PARAM_NAME);
+        CURSOR_PARAM_NAME = StringUtils.isNotBlank(cursorParamName) ? cursorParamName : CURSOR_PARAM_NAME;
+
+        final String cursorHeaderName = (String) configuration.getProperty(EbeanFeature.CURSOR_HEADER_NAME);
+        CURSOR_HEADER_NAME = StringUtils.isNotBlank(cursorHeaderName) ? cursorHeaderName : CURSOR_HEADER_NAME;
+
+        final String streamParamName = (String) configuration.getProperty(EbeanFeature.STREAM_PARAM_NAME);
+        STREAM_PARAM_NAME = StringUtils.isNotBlank(streamParamName) ? streamParamName : STREAM_PARAM_NAME;
+        STREAM_ENABLED = Boolean.parseBoolean((String) configuration.getProperty(EbeanFeature.STREAM_ENABLED));
+
+        final String countCacheTtl = (String) configuration.getProperty(EbeanFeature.COUNT_CACHE_TTL);
+        final String countCacheSize = (String) configuration.getProperty(EbeanFeature.COUNT_CACHE_SIZE);
+        Long ttl = StringUtils.isBlank(countCacheTtl) ? null : Longs.tryParse(countCacheTtl.trim());
+        Long size = StringUtils.isBlank(countCacheSize) ? null : Longs.tryParse(countCacheSize.trim());
+        RowCounts.configure(ttl == null ? 0 : ttl, size == null ? DEFAULT_COUNT_CACHE_SIZE : size);
+
+        final String resultCacheEntries = (String) configuration.getProperty(EbeanFeature.RESULT_CACHE_ENTRIES);
+        final String resultCacheBytes = (String) configuration.getProperty(EbeanFeature.RESULT_CACHE_BYTES);
+        final String resultCacheTtl = (String) configuration.getProperty(EbeanFeature.RESULT_CACHE_TTL);
+        Long entries = StringUtils.isBlank(resultCacheEntries) ? null : Longs.tryParse(resultCacheEntries.trim());
+        Long bytes = StringUtils.isBlank(resultCacheBytes) ? null : Longs.tryParse(resultCacheBytes.trim());
+        ttl = StringUtils.isBlank(resultCacheTtl) ? null : Longs.tryParse(resultCacheTtl.trim());
+        ModelResultCache.configure(entries == null ? 0 : entries,
+                bytes == null ? DEFAULT_RESULT_CACHE_BYTES : bytes, ttl == null ? 0 : ttl);
+
         final String defaultPerPage = (String) configuration.getProperty(EbeanFeature.DEFAULT_PER_PAGE_PARAM_NAME);
         if (StringUtils.isNotBlank(defaultPerPage)) {
             try {
@@ -439,6 +600,15 @@ public class ModelInterceptor implements WriterInterceptor {
                 MAX_PER_PAGE = -1;
             }
         }
+
+        final String streamMaxPerPage = (String) configuration.getProperty(EbeanFeature.STREAM_MAX_PER_PAGE_PARAM_NAME);
+        if (StringUtils.isNotBlank(streamMaxPerPage)) {
+            try {
+                STREAM_MAX_PER_PAGE = Integer.parseInt(streamMaxPerPage);
+            } catch (Exception e) {
+                STREAM_MAX_PER_PAGE = -1;
+            }
+        }
     }
 
     /**
@@ -472,6 +642,14 @@ public class ModelInterceptor implements WriterInterceptor {
 
             if (query != null) {
                 FutureRowCount rowCount = applyUriQuery(queryParams, query, manager);
+                if (!(o instanceof FutureList) && isStream(queryParams)) {
+                    applyRowCountHeader(context.getHeaders(), query, rowCount);
+                    context.setEntity(new QueryStream<>(query));
+                    context.setType(QueryStream.class);
+                    context.setGenericType(QueryStream.class);
+                    context.proceed();
+                    return;
+                }
                 BeanList list;
                 if (o instanceof FutureList) {
                     list = (BeanList) ((FutureList) o).getUnchecked();
@@ -483,6 +661,8 @@ public class ModelInterceptor implements WriterInterceptor {
 
                 List result = list.getActualList();
 
+                applyCursorHeader(uriInfoProvider.get(), context.getHeaders(), query, result);
+
                 context.setEntity(result);
 
                 Class clazz = result.getClass();
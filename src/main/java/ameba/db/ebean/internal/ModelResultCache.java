@@ -0,0 +1,271 @@
+package ameba.db.ebean.internal;
+
+import ameba.core.Requests;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Query result cache of model resources.</p>
+ * <p>
+ * The written response bytes of {@link ameba.db.ebean.support.ModelResourceStructure} find endpoints are
+ * cached by model type, request path, user, accept header and the query parameters, the filter is normalized
+ * by the parsed expression. A hit responds the bytes and the headers directly, without query and serialization.
+ * The results of a model type are invalidated when the model is inserted, updated or deleted by the resource,
+ * the changes by {@link ameba.db.model.Persister#save()}, services, other nodes or of the associated models don't
+ * invalidate them, so the results always expire after the ttl, the cache is disabled without a ttl.
+ * </p>
+ * The cache of a model type is bounded by entries and bytes, a result larger than the bytes is not cached.
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+public final class ModelResultCache {
+    private static final Logger logger = LoggerFactory.getLogger(ModelResultCache.class);
+    private static final String LOOKUP_PROPERTY = ModelResultCache.class.getName() + ".lookup";
+    private static final String PENDING_PROPERTY = ModelResultCache.class.getName() + ".pending";
+    // headers of the message and the connection, they are set by the response
+    private static final Set<String> EXCLUDED_HEADERS = ImmutableSet.of(
+            HttpHeaders.CONTENT_TYPE.toLowerCase(),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.CONTENT_ENCODING.toLowerCase(),
+            HttpHeaders.SET_COOKIE.toLowerCase(),
+            HttpHeaders.DATE.toLowerCase(),
+            HttpHeaders.VARY.toLowerCase()
+    );
+    private static final ConcurrentMap<Class<?>, TypeCache> CACHES = Maps.newConcurrentMap();
+    private static volatile long maxEntries = 0;
+    private static volatile long maxBytes = 0;
+    private static volatile long ttl = 0;
+
+    private ModelResultCache() {
+    }
+
+    /**
+     * set the bounds of the cache of a model type, existing results are dropped
+     *
+     * @param entries   max results, 0 to disable the cache
+     * @param bytes     max bytes, 0 to disable the cache
+     * @param ttlMillis ttl in milliseconds, 0 to disable the cache
+     */
+    public static void configure(long entries, long bytes, long ttlMillis) {
+        if (entries > 0 && bytes > 0 && ttlMillis <= 0) {
+            logger.warn("model query result cache is disabled, model.query.result.cache.ttl is required");
+        }
+        maxEntries = entries;
+        maxBytes = bytes;
+        ttl = ttlMillis;
+        CACHES.clear();
+    }
+
+    /**
+     * <p>isEnabled.</p>
+     *
+     * @return true if results are cached
+     */
+    public static boolean isEnabled() {
+        return maxEntries > 0 && maxBytes > 0 && ttl > 0;
+    }
+
+    /**
+     * drop cached results of the model type
+     *
+     * @param modelType model type
+     */
+    public static void invalidate(Class<?> modelType) {
+        TypeCache cache = CACHES.get(modelType);
+        if (cache != null) {
+            // a result of the old generation can't be put between them
+            synchronized (cache) {
+                cache.generation.incrementAndGet();
+                cache.results.invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * cached response of the current request
+     *
+     * @param modelType   model type
+     * @param queryParams uri query params
+     * @return cached response, null if it is not cached
+     */
+    public static Response get(Class<?> modelType, MultivaluedMap<String, String> queryParams) {
+        if (!isEnabled() || ModelInterceptor.isStream(queryParams)) {
+            return null;
+        }
+        TypeCache cache = CACHES.computeIfAbsent(modelType, t -> new TypeCache());
+        String key = RowCounts.key(queryParams, Collections.emptySet())
+                + "#" + StringUtils.join(Requests.getRequestHeader(HttpHeaders.ACCEPT), ",");
+        Result result = cache.results.getIfPresent(key);
+        if (result != null) {
+            Response.ResponseBuilder builder = Response.ok(result.bytes, result.mediaType);
+            for (Map.Entry<String, List<Object>> header : result.headers.entrySet()) {
+                for (Object value : header.getValue()) {
+                    builder.header(header.getKey(), value);
+                }
+            }
+            return builder.build();
+        }
+        // the result read before a change is not cached after the change
+        Requests.setProperty(LOOKUP_PROPERTY, new Pending(cache, key, cache.generation.get()));
+        return null;
+    }
+
+    /**
+     * cache the response entity bytes of the current request when it is written,
+     * call it after the result is read successfully
+     */
+    public static void capture() {
+        Object pending = Requests.getProperty(LOOKUP_PROPERTY);
+        if (pending != null) {
+            Requests.removeProperty(LOOKUP_PROPERTY);
+            Requests.setProperty(PENDING_PROPERTY, pending);
+        }
+    }
+
+    private static class TypeCache {
+        final AtomicLong generation = new AtomicLong();
+        final Cache<String, Result> results;
+
+        TypeCache() {
+            // every result weighs at least bytes / entries, so both bounds hold
+            long minWeight = Math.max(1, maxBytes / maxEntries);
+            results = CacheBuilder.newBuilder()
+                    .maximumWeight(maxBytes)
+                    .weigher((String key, Result result) ->
+                            (int) Math.min(Integer.MAX_VALUE, Math.max(result.bytes.length, minWeight)))
+                    .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                    .build();
+        }
+    }
+
+    private static class Result {
+        final byte[] bytes;
+        final MediaType mediaType;
+        final MultivaluedMap<String, Object> headers;
+
+        Result(byte[] bytes, MediaType mediaType, MultivaluedMap<String, Object> headers) {
+            this.bytes = bytes;
+            this.mediaType = mediaType;
+            this.headers = headers;
+        }
+    }
+
+    private static class Pending {
+        final TypeCache cache;
+        final String key;
+        final long generation;
+
+        Pending(TypeCache cache, String key, long generation) {
+            this.cache = cache;
+            this.key = key;
+            this.generation = generation;
+        }
+
+        void put(byte[] bytes, MediaType mediaType, MultivaluedMap<String, Object> headers) {
+            MultivaluedMap<String, Object> copy = new MultivaluedHashMap<>();
+            for (Map.Entry<String, List<Object>> header : headers.entrySet()) {
+                if (!EXCLUDED_HEADERS.contains(header.getKey().toLowerCase())) {
+                    copy.addAll(header.getKey(), header.getValue());
+                }
+            }
+            Result result = new Result(bytes, mediaType, copy);
+            synchronized (cache) {
+                if (cache.generation.get() == generation) {
+                    cache.results.put(key, result);
+                }
+            }
+        }
+    }
+
+    // copy the written bytes up to the limit
+    private static class CopyOutputStream extends FilterOutputStream {
+        private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        private final long limit;
+        private boolean overflow;
+
+        CopyOutputStream(OutputStream out, long limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            copy(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            copy(b, off, len);
+        }
+
+        private void copy(byte[] b, int off, int len) {
+            if (overflow) return;
+            if (copy.size() + len > limit) {
+                overflow = true;
+                copy.reset();
+            } else {
+                copy.write(b, off, len);
+            }
+        }
+    }
+
+    /**
+     * Capture the written entity bytes of the pending result, runs after the other entity coders.
+     */
+    @Priority(Priorities.ENTITY_CODER + 1000)
+    public static class CaptureInterceptor implements WriterInterceptor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+            Object pending = context.getProperty(PENDING_PROPERTY);
+            if (!(pending instanceof Pending)) {
+                context.proceed();
+                return;
+            }
+            context.removeProperty(PENDING_PROPERTY);
+            OutputStream out = context.getOutputStream();
+            CopyOutputStream copy = new CopyOutputStream(out, maxBytes);
+            context.setOutputStream(copy);
+            try {
+                context.proceed();
+            } finally {
+                context.setOutputStream(out);
+            }
+            if (!copy.overflow) {
+                ((Pending) pending).put(copy.copy.toByteArray(), context.getMediaType(), context.getHeaders());
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ameba.db.ebean.internal;
+
+import ameba.exception.UnprocessableEntityException;
+import ameba.i18n.Messages;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import io.ebean.ExpressionList;
+import io.ebean.OrderBy;
+import io.ebean.OrderBy.Property;
+import io.ebeaninternal.api.SpiQuery;
+import io.ebeaninternal.server.deploy.BeanDescriptor;
+import io.ebeaninternal.server.deploy.BeanProperty;
+import io.ebeaninternal.server.el.ElPropertyValue;
+import io.ebeaninternal.server.type.ScalarType;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * <p>Keyset pagination cursor.</p>
+ * <p>
+ * The query is ordered by the requested order and the id, the cursor is the order values of the last row
+ * of the page, next page is read by <code>(order, id) &gt; (cursor values)</code>, so the database seek to
+ * the cursor by index instead of scanning and discarding the offset rows.
+ * Ebean has not row value comparison, the predicate is expanded to
+ * <code>a &gt; ? or (a = ? and id &gt; ?)</code>, the directions of order properties are kept.
+ * </p>
+ * The order values must be not null, no next cursor if the last row has a null order value.
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+final class QueryCursor {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String SEPARATOR = ".";
+
+    private QueryCursor() {
+    }
+
+    /**
+     * order the query by the id too, and read after the cursor
+     *
+     * @param query  query
+     * @param cursor cursor, read the first page if blank
+     */
+    static void apply(SpiQuery<?> query, String cursor) {
+        List<Property> keys = keys(query);
+        if (StringUtils.isBlank(cursor)) {
+            return;
+        }
+        String[] parts = StringUtils.split(cursor.trim(), SEPARATOR);
+        if (parts.length != keys.size()) {
+            throw new UnprocessableEntityException(Messages.get("info.query.cursor.unprocessable.entity", cursor));
+        }
+        BeanDescriptor<?> descriptor = query.getBeanDescriptor();
+        Object[] values = new Object[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                String value = new String(DECODER.decode(parts[i]), Charsets.UTF_8);
+                values[i] = scalarType(descriptor, keys.get(i).getProperty()).parse(value);
+            }
+        } catch (RuntimeException e) {
+            throw new UnprocessableEntityException(Messages.get("info.query.cursor.unprocessable.entity", cursor), e);
+        }
+
+        ExpressionList<?> or = query.where().or();
+        for (int i = 0; i < keys.size(); i++) {
+            ExpressionList<?> and = or.and();
+            for (int j = 0; j < i; j++) {
+                and.eq(keys.get(j).getProperty(), values[j]);
+            }
+            Property key = keys.get(i);
+            if (key.isAscending()) {
+                and.gt(key.getProperty(), values[i]);
+            } else {
+                and.lt(key.getProperty(), values[i]);
+            }
+            and.endAnd();
+        }
+        or.endOr();
+    }
+
+    /**
+     * cursor of the page after the beans
+     *
+     * @param query query
+     * @param beans beans of the page
+     * @return cursor, null if it is the last page
+     */
+    static String next(SpiQuery<?> query, List<?> beans) {
+        int maxRows = query.getMaxRows();
+        if (beans == null || beans.isEmpty() || maxRows <= 0 || beans.size() < maxRows) {
+            return null;
+        }
+        BeanDescriptor<?> descriptor = query.getBeanDescriptor();
+        Object last = beans.get(beans.size() - 1);
+        List<String> parts = Lists.newArrayList();
+        for (Property key : query.getOrderBy().getProperties()) {
+            ElPropertyValue property = descriptor.getElGetValue(key.getProperty());
+            Object value = property == null ? null : property.pathGet(last);
+            if (value == null) {
+                return null;
+            }
+            String text = scalarType(descriptor, key.getProperty()).format(value);
+            parts.add(ENCODER.encodeToString(text.getBytes(Charsets.UTF_8)));
+        }
+        return StringUtils.join(parts, SEPARATOR);
+    }
+
+    // order properties and the id
+    private static List<Property> keys(SpiQuery<?> query) {
+        OrderBy<?> orderBy = query.orderBy();
+        BeanProperty id = query.getBeanDescriptor().getIdProperty();
+        if (id != null) {
+            boolean ordered = false;
+            for (Property property : orderBy.getProperties()) {
+                if (property.getProperty().equals(id.getName())) {
+                    ordered = true;
+                    break;
+                }
+            }
+            if (!ordered) {
+                orderBy.asc(id.getName());
+            }
+        }
+        return orderBy.getProperties();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ScalarType<Object> scalarType(BeanDescriptor<?> descriptor, String path) {
+        ElPropertyValue property = descriptor.getElGetValue(path);
+        BeanProperty beanProperty = property == null ? null : property.getBeanProperty();
+        ScalarType<?> type = beanProperty == null ? null : beanProperty.getScalarType();
+        if (type == null) {
+            throw new UnprocessableEntityException(Messages.get("info.query.cursor.unprocessable.entity", path));
+        }
+        return (ScalarType<Object>) type;
+    }
+}
@@ -0,0 +1,81 @@
+package ameba.db.ebean.internal;
+
+import ameba.db.ebean.EbeanUtils;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.ebean.FetchPath;
+import io.ebean.QueryIterator;
+import io.ebean.text.json.JsonContext;
+import io.ebeaninternal.api.SpiQuery;
+
+import java.io.IOException;
+
+/**
+ * <p>Streaming query result.</p>
+ * <p>
+ * Written as an array, the beans are read by {@link io.ebean.Query#findIterate()} and written one by one,
+ * the iterator uses a per bean persistence context, so the memory is constant and the first rows are sent
+ * before the query is finished. The request <code>fields</code> are applied to each bean.
+ * </p>
+ * <p>
+ * The query runs when the response is written, outside of the resource transaction, and the iterator holds a
+ * pooled connection until the last row is written, so a slow client keeps the connection as long as it is
+ * downloading. The rows are limited by <code>model.query.stream.max_per_page</code>.
+ * </p>
+ *
+ * @param <T> model type
+ * @author icode
+ * @since 0.1.13
+ */
+@JsonSerialize(using = QueryStream.Serializer.class)
+public final class QueryStream<T> {
+    private static final int FLUSH_ROWS = 100;
+    private final SpiQuery<T> query;
+
+    /**
+     * <p>Constructor for QueryStream.</p>
+     *
+     * @param query a {@link io.ebeaninternal.api.SpiQuery} object.
+     */
+    public QueryStream(SpiQuery<T> query) {
+        this.query = query;
+    }
+
+    /**
+     * <p>Getter for the field <code>query</code>.</p>
+     *
+     * @return a {@link io.ebeaninternal.api.SpiQuery} object.
+     */
+    public SpiQuery<T> getQuery() {
+        return query;
+    }
+
+    static class Serializer extends JsonSerializer<QueryStream<?>> {
+        @Override
+        public void serialize(QueryStream<?> stream, JsonGenerator generator,
+                              SerializerProvider provider) throws IOException {
+            SpiQuery<?> query = stream.getQuery();
+            JsonContext json = query.getBeanDescriptor().getEbeanServer().json();
+            FetchPath fetchPath = EbeanUtils.getRequestFetchPath();
+            generator.writeStartArray();
+            generator.flush();
+            try (QueryIterator<?> iterator = query.findIterate()) {
+                int rows = 0;
+                while (iterator.hasNext()) {
+                    Object bean = iterator.next();
+                    if (fetchPath != null) {
+                        json.toJson(bean, generator, fetchPath);
+                    } else {
+                        json.toJson(bean, generator);
+                    }
+                    if (++rows % FLUSH_ROWS == 0) {
+                        generator.flush();
+                    }
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package ameba.db.ebean.internal;
+
+import ameba.core.Requests;
+import ameba.db.dsl.QueryDSL;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+import io.ebean.FutureRowCount;
+import io.ebean.Query;
+import io.ebean.SqlQuery;
+import io.ebean.SqlRow;
+import io.ebeaninternal.api.SpiEbeanServer;
+import io.ebeaninternal.api.SpiQuery;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.PersistenceException;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.SecurityContext;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Cached and approximate total row counts.</p>
+ * <p>
+ * The exact counts are cached for a ttl by model type, request path, user and the query parameters except
+ * the page parameters, the filter is normalized by the parsed expression. The counts of a model type are
+ * invalidated when the model is inserted, updated or deleted by {@link ameba.db.ebean.support.ModelResourceStructure}.
+ * </p>
+ * The approximate count is the table statistics of the database, it's used for the query without where
+ * expressions on PostgreSQL and MySQL, otherwise the count is exact.
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+public final class RowCounts {
+    private static final Logger logger = LoggerFactory.getLogger(RowCounts.class);
+    private static final ConcurrentMap<Class<?>, TypeCache> CACHES = Maps.newConcurrentMap();
+    private static volatile long ttl = 0;
+    private static volatile long size = 1000;
+
+    private RowCounts() {
+    }
+
+    /**
+     * set the count cache ttl and max size of a model type, existing counts are dropped
+     *
+     * @param ttlMillis ttl in milliseconds, 0 to disable the cache
+     * @param maxSize   max cached counts of a model type
+     */
+    public static void configure(long ttlMillis, long maxSize) {
+        ttl = ttlMillis;
+        size = maxSize;
+        CACHES.clear();
+    }
+
+    /**
+     * <p>isCacheEnabled.</p>
+     *
+     * @return true if counts are cached
+     */
+    public static boolean isCacheEnabled() {
+        return ttl > 0 && size > 0;
+    }
+
+    /**
+     * drop cached counts of the model type
+     *
+     * @param modelType model type
+     */
+    public static void invalidate(Class<?> modelType) {
+        TypeCache cache = CACHES.get(modelType);
+        if (cache != null) {
+            // a count of the old generation can't be put between them
+            synchronized (cache) {
+                cache.generation.incrementAndGet();
+                cache.counts.invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * cached count or the count of the query, the count is cached when it's got
+     *
+     * @param queryParams uri query params
+     * @param ignored     names of the query params are not a part of the cache key
+     * @param query       query
+     * @return count
+     */
+    static <T> FutureRowCount<T> count(MultivaluedMap<String, String> queryParams, Set<String> ignored,
+                                       SpiQuery<T> query) {
+        if (!isCacheEnabled()) {
+            return query.findFutureCount();
+        }
+        TypeCache cache = CACHES.computeIfAbsent(query.getBeanType(), t -> new TypeCache());
+        String key = key(queryParams, ignored);
+        Integer count = cache.counts.getIfPresent(key);
+        if (count != null) {
+            return new CountedRowCount<>(query, count);
+        }
+        // the count read before a change is not cached after the change
+        long generation = cache.generation.get();
+        return new CachingRowCount<>(query.findFutureCount(), cache, key, generation);
+    }
+
+    /**
+     * approximate count by the table statistics, the query without where expressions only
+     *
+     * @param query query
+     * @return count, null if it's not supported
+     */
+    static <T> FutureRowCount<T> approximate(SpiQuery<T> query) {
+        if (query.getWhereExpressions() != null && !query.getWhereExpressions().getUnderlyingList().isEmpty()) {
+            return null;
+        }
+        String table = query.getBeanDescriptor().getBaseTable();
+        if (table == null) {
+            return null;
+        }
+        SpiEbeanServer server = query.getBeanDescriptor().getEbeanServer();
+        String platform = StringUtils.lowerCase(server.getDatabasePlatform().getName());
+        try {
+            SqlRow row;
+            if (StringUtils.contains(platform, "postgres")) {
+                row = server.createSqlQuery("select cast(reltuples as bigint) as n from pg_class " +
+                        "where oid = to_regclass(:table)")
+                        .setParameter("table", table)
+                        .findOne();
+            } else if (StringUtils.contains(platform, "mysql")) {
+                int dot = table.lastIndexOf('.');
+                SqlQuery sqlQuery = server.createSqlQuery("select table_rows as n from information_schema.tables " +
+                        "where table_schema = " + (dot == -1 ? "database()" : ":schema") +
+                        " and table_name = :table")
+                        .setParameter("table", table.substring(dot + 1));
+                if (dot != -1) {
+                    sqlQuery.setParameter("schema", table.substring(0, dot));
+                }
+                row = sqlQuery.findOne();
+            } else {
+                return null;
+            }
+            Long count = row == null ? null : row.getLong("n");
+            if (count == null || count < 0) {
+                return null;
+            }
+            return new CountedRowCount<>(query, (int) Math.min(count, Integer.MAX_VALUE));
+        } catch (PersistenceException e) {
+            logger.debug("approximate count of " + table + " has error", e);
+            return null;
+        }
+    }
+
+    static String key(MultivaluedMap<String, String> queryParams, Set<String> ignored) {
+        Map<String, List<String>> params = new TreeMap<>();
+        for (Map.Entry<String, List<String>> entry : queryParams.entrySet()) {
+            if (!ignored.contains(entry.getKey())) {
+                params.put(entry.getKey(), entry.getValue());
+            }
+        }
+        StringBuilder key = new StringBuilder(Requests.getPath(true));
+        SecurityContext securityContext = Requests.getSecurityContext();
+        Principal principal = securityContext == null ? null : securityContext.getUserPrincipal();
+        if (principal != null) {
+            key.append('@').append(principal.getName());
+        }
+        for (Map.Entry<String, List<String>> entry : params.entrySet()) {
+            key.append('&').append(entry.getKey()).append('=');
+            boolean filter = entry.getKey().equals(ModelInterceptor.getFilterParamName());
+            for (String value : entry.getValue()) {
+                key.append(filter ? QueryDSL.parse(value) : value).append(',');
+            }
+        }
+        return key.toString();
+    }
+
+    private static class TypeCache {
+        final AtomicLong generation = new AtomicLong();
+        final Cache<String, Integer> counts = CacheBuilder.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .build();
+
+        void put(String key, Integer count, long generation) {
+            synchronized (this) {
+                if (this.generation.get() == generation) {
+                    counts.put(key, count);
+                }
+            }
+        }
+    }
+
+    // counted
+    private static class CountedRowCount<T> implements FutureRowCount<T> {
+        private final Query<T> query;
+        private final Integer count;
+
+        CountedRowCount(Query<T> query, Integer count) {
+            this.query = query;
+            this.count = count;
+        }
+
+        @Override
+        public Query<T> getQuery() {
+            return query;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return true;
+        }
+
+        @Override
+        public Integer get() {
+            return count;
+        }
+
+        @Override
+        public Integer get(long timeout, TimeUnit unit) {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(count);
+        }
+    }
+
+    // cache the count when it's got
+    private static class CachingRowCount<T> implements FutureRowCount<T> {
+        private final FutureRowCount<T> future;
+        private final TypeCache cache;
+        private final String key;
+        private final long generation;
+
+        CachingRowCount(FutureRowCount<T> future, TypeCache cache, String key, long generation) {
+            this.future = future;
+            this.cache = cache;
+            this.key = key;
+            this.generation = generation;
+        }
+
+        @Override
+        public Query<T> getQuery() {
+            return future.getQuery();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return future.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return future.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return future.isDone();
+        }
+
+        @Override
+        public Integer get() throws InterruptedException, ExecutionException {
+            return put(future.get());
+        }
+
+        @Override
+        public Integer get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+                TimeoutException {
+            return put(future.get(timeout, unit));
+        }
+
+        private Integer put(Integer count) {
+            if (count != null) {
+                cache.put(key, count, generation);
+            }
+            return count;
+        }
+    }
+}
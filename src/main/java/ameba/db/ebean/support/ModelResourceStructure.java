@@ -2,10 +2,14 @@ package ameba.db.ebean.support;
 
 import ameba.db.ebean.EbeanUtils;
 import ameba.db.ebean.internal.ModelInterceptor;
+import ameba.db.ebean.internal.ModelResultCache;
+import ameba.db.ebean.internal.QueryStream;
+import ameba.db.ebean.internal.RowCounts;
 import ameba.exception.UnprocessableEntityException;
 import ameba.i18n.Messages;
 import ameba.lib.LoggerOwner;
 import com.google.common.collect.Collections2;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import io.ebean.*;
 import io.ebean.bean.EntityBean;
@@ -31,6 +35,7 @@ import java.net.URI;
 import java.sql.Timestamp;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -41,6 +46,7 @@ import java.util.Set;
  */
 public abstract class ModelResourceStructure<URI_ID, MODEL_ID, MODEL> extends LoggerOwner {
 
+    private static final Map<Class<?>, Boolean> STREAMABLE = Maps.newConcurrentMap();
     protected final SpiEbeanServer server;
     protected Class<MODEL> modelType;
     protected String defaultFindOrderBy;
@@ -199,6 +205,7 @@ public abstract class ModelResourceStructure<URI_ID, MODEL_ID, MODEL> extends Lo
             insertModel(model);
             postInsertModel(model);
         });
+        modelChanged();
         MODEL_ID id = (MODEL_ID) this.server.getBeanId(model);
 
         return Response.created(buildLocationUri(id)).build();
@@ -278,6 +285,7 @@ public abstract class ModelResourceStructure<URI_ID, MODEL_ID, MODEL> extends Lo
             postInsertModel(model);
             builder.status(Response.Status.CREATED).location(buildLocationUri(mId, true));
         });
+        modelChanged();
         return builder.build();
     }
 
@@ -343,7 +351,7 @@ public abstract class ModelResourceStructure<URI_ID, MODEL_ID, MODEL> extends Lo
         descriptor.convertSetId(mId, (EntityBean) model);
         final Response.ResponseBuilder builder = Response.noContent()
                 .contentLocation(uriInfo.getAbsolutePath());
-        return executeTx(t -> {
+        Response response = executeTx(t -> {
             prePatchModel(model);
             patchModel(model);
             postPatchModel(model);
@@ -352,6 +360,8 @@ public abstract class ModelResourceStructure<URI_ID, MODEL_ID, MODEL> extends Lo
             // id 无法对应数据。实体对象和补丁都正确，但无法处理请求，所以返回422
             return builder.status(422).build();
         });
+        modelChanged();
+        return response;
     }
 
     /**
@@ -445,9 +455,37 @@ public abstract class ModelResourceStructure<URI_ID, MODEL_ID, MODEL> extends Lo
                 postDeleteModel(firstId, p);
             }, failProcess);
         }
+        modelChanged();
         return builder.build();
     }
 
+    /**
+     * the models are changed, drop the cached counts and results of the model type
+     */
+    protected void modelChanged() {
+        RowCounts.invalidate(modelType);
+        ModelResultCache.invalidate(modelType);
+    }
+
+    /**
+     * cached response of the find request
+     *
+     * @return cached response, null if it is not cached
+     * @see ModelResultCache#get
+     */
+    protected Response findCachedResult() {
+        return ModelResultCache.get(modelType, uriInfo.getQueryParameters());
+    }
+
+    /**
+     * cache the response of the find request when it is written
+     *
+     * @see ModelResultCache#capture
+     */
+    protected void cacheFoundResult() {
+        ModelResultCache.capture();
+    }
+
     /**
      * <p>matchedDelete.</p>
      *
@@ -561,6 +599,10 @@ public abstract class ModelResourceStructure<URI_ID, MODEL_ID, MODEL> extends Lo
             idCollection.addAll(Collections2.transform(idSet, this::tryConvertId));
         }
         matchedFindByIds(firstId, idCollection, includeDeleted);
+        Response cached = findCachedResult();
+        if (cached != null) {
+            return cached;
+        }
         Object model;
         if (includeDeleted) {
             query.setIncludeSoftDeletes();
@@ -587,6 +629,7 @@ public abstract class ModelResourceStructure<URI_ID, MODEL_ID, MODEL> extends Lo
         if (isEmptyEntity(model)) {
             throw new NotFoundException();
         }
+        cacheFoundResult();
         return Response.ok(model).build();
     }
 
@@ -658,6 +701,10 @@ public abstract class ModelResourceStructure<URI_ID, MODEL_ID, MODEL> extends Lo
      */
     public Response find(@QueryParam("include_deleted") final boolean includeDeleted) throws Exception {
         matchedFind(includeDeleted);
+        Response cached = findCachedResult();
+        if (cached != null) {
+            return cached;
+        }
         final Query<MODEL> query = server.find(modelType);
 
         if (includeDeleted) {
@@ -667,12 +714,17 @@ public abstract class ModelResourceStructure<URI_ID, MODEL_ID, MODEL> extends Lo
         defaultFindOrderBy(query);
 
         final Ref<FutureRowCount> rowCount = Refs.emptyRef();
+        final Ref<List<MODEL>> found = Refs.emptyRef();
 
         Object entity = executeTx(t -> {
             configDefaultQuery(query);
             configFindQuery(query, includeDeleted);
             rowCount.set(applyUriQuery(query));
+            if (ModelInterceptor.isStream(uriInfo.getQueryParameters()) && isStreamable()) {
+                return processFoundModelStream(new QueryStream<>((SpiQuery<MODEL>) query), includeDeleted);
+            }
             List<MODEL> list = query.findList();
+            found.set(list);
             return processFoundModelList(list, includeDeleted);
         });
 
@@ -681,9 +733,47 @@ public abstract class ModelResourceStructure<URI_ID, MODEL_ID, MODEL> extends Lo
         }
         Response response = Response.ok(entity).build();
         applyRowCountHeader(response.getHeaders(), query, rowCount.get());
+        applyCursorHeader(response.getHeaders(), query, found.get());
+        cacheFoundResult();
         return response;
     }
 
+    /**
+     * whether the find result can be streamed when the client requests it, streaming is enabled by
+     * <code>model.query.stream.enabled</code>. It's false if {@link #processFoundModelList(List, boolean)}
+     * is overridden, the found models are processed by it then, override {@link #processFoundModelStream}
+     * and this method to stream them.
+     *
+     * @return true if the find result can be streamed
+     * @since 0.1.13
+     */
+    protected boolean isStreamable() {
+        return STREAMABLE.computeIfAbsent(getClass(), type -> {
+            for (Class<?> c = type; c != ModelResourceStructure.class; c = c.getSuperclass()) {
+                try {
+                    c.getDeclaredMethod("processFoundModelList", List.class, boolean.class);
+                    return false;
+                } catch (NoSuchMethodException e) {
+                    // not overridden by this class
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * process the streaming result of find, the models are read when the response is written
+     *
+     * @param stream         streaming result
+     * @param includeDeleted a boolean.
+     * @return entity
+     * @throws java.lang.Exception if any.
+     * @since 0.1.13
+     */
+    protected Object processFoundModelStream(final QueryStream<MODEL> stream, boolean includeDeleted) throws Exception {
+        return stream;
+    }
+
     /**
      * <p>matchedFind.</p>
      *
@@ -1043,6 +1133,18 @@ public abstract class ModelResourceStructure<URI_ID, MODEL_ID, MODEL> extends Lo
         ModelInterceptor.applyRowCountHeader(headerParams, query, rowCount);
     }
 
+    /**
+     * <p>applyCursorHeader.</p>
+     *
+     * @param headerParams a {@link javax.ws.rs.core.MultivaluedMap} object.
+     * @param query        a {@link io.ebean.Query} object.
+     * @param list         found models
+     * @since 0.1.13
+     */
+    protected void applyCursorHeader(MultivaluedMap<String, Object> headerParams, Query query, List<MODEL> list) {
+        ModelInterceptor.applyCursorHeader(uriInfo, headerParams, query, list);
+    }
+
     /**
      * <p>processTransactionError.</p>
      *
@@ -2,7 +2,10 @@ package ameba.db.model;
 
 import ameba.core.Addon;
 import ameba.core.Application;
+import ameba.core.Provides;
+import ameba.core.Requires;
 import ameba.db.DataSourceManager;
+import ameba.event.ThreadSafeListener;
 import ameba.scanner.ClassFoundEvent;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -22,6 +25,8 @@ import java.util.Set;
  * @author icode
  * @since 0.1.6e
  */
+@Provides("models")
+@Requires("dataSource")
 public class ModelManager extends Addon {
 
     /**
@@ -77,15 +82,16 @@ public class ModelManager extends Addon {
                 final String[] startsPackages = pkgs.toArray(new String[pkgs.size()]);
                 application.packages(startsPackages);
 
-                final Set<Class> classes = Sets.newHashSet();
+                final Set<Class> classes = Sets.newConcurrentHashSet();
 
-                subscribeSystemEvent(ClassFoundEvent.class, event -> event.accept(info -> {
+                // only load model class, so the parallel scanner can call it concurrently
+                subscribeSystemEvent(ClassFoundEvent.class,
+                        (ThreadSafeListener<ClassFoundEvent>) event -> event.accept(info -> {
                     if (info.startsWithPackage(startsPackages)) {
-                        logger.trace("load class : {}", info.getClassName());
-                        Class clazz = info.toClass();
                         if (info.containsAnnotations(Entity.class, Embeddable.class)
-                                || Model.class.isAssignableFrom(clazz)) {
-                            classes.add(clazz);
+                                || info.accept(metadata -> Model.class.getName().equals(metadata.getClassName()))) {
+                            logger.trace("load class : {}", info.getClassName());
+                            classes.add(info.toClass());
                         }
                         return true;
                     }
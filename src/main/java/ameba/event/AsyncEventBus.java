@@ -7,11 +7,15 @@ import co.paralleluniverse.actors.behaviors.EventSourceActor;
 import co.paralleluniverse.fibers.RuntimeSuspendExecution;
 import co.paralleluniverse.fibers.SuspendExecution;
 import co.paralleluniverse.fibers.Suspendable;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * <p>Abstract AsyncEventBus class.</p>
@@ -21,7 +25,10 @@ import java.util.Map;
 public class AsyncEventBus<Event extends ameba.event.Event> implements EventBus<Event> {
     private static final Logger logger = LoggerFactory.getLogger(AsyncEventBus.class);
 
-    private final Map<Class<? extends Event>, EventSource<? extends Event>> eventSourceMap = Maps.newConcurrentMap();
+    private static final EventSource[] EMPTY_SOURCES = new EventSource[0];
+
+    private final Map<Class<? extends Event>, Source> sourceMap = Maps.newConcurrentMap();
+    private final Map<Class<?>, EventSource[]> dispatchIndex = Maps.newConcurrentMap();
 
     @SuppressWarnings("unchecked")
     protected AsyncEventBus() {
@@ -36,10 +43,17 @@ public class AsyncEventBus<Event extends ameba.event.Event> implements EventBus<
     @Suspendable
     @SuppressWarnings("unchecked")
     public <E extends Event> void subscribe(Class<E> event, Listener<E> listener) {
+        EventHandler handler = handler(event, listener);
+        Source source = sourceMap.compute(event, (k, s) -> {
+            if (s == null) {
+                s = new Source(new EventSourceActor<E>(AsyncEventBus.class.getName()).spawn());
+            }
+            s.handlers.add(handler);
+            return s;
+        });
+        dispatchIndex.clear();
         try {
-            eventSourceMap.computeIfAbsent(
-                    event, k -> new EventSourceActor<E>(AsyncEventBus.class.getName()).spawn()
-            ).addHandler(handler(event, listener));
+            source.eventSource.addHandler(handler);
         } catch (SuspendExecution e) {
             throw RuntimeSuspendExecution.of(e);
         } catch (Exception e) {
@@ -55,23 +69,35 @@ public class AsyncEventBus<Event extends ameba.event.Event> implements EventBus<
     @Suspendable
     @SuppressWarnings("unchecked")
     public <E extends Event> void unsubscribe(Class<E> event, Listener<E> listener) {
-        EventSource<? extends Event> eventSource = eventSourceMap.get(event);
-        if (eventSource != null) {
+        Source source = sourceMap.get(event);
+        if (source != null) {
+            EventHandler handler = handler(event, listener);
             try {
-                eventSource.removeHandler(handler(event, listener));
+                source.eventSource.removeHandler(handler);
             } catch (SuspendExecution e) {
                 throw RuntimeSuspendExecution.of(e);
             } catch (InterruptedException e) {
                 logger.error("unsubscribe event has error", e);
             }
+            // drop the event source with the last handler
+            sourceMap.computeIfPresent(event, (k, s) -> {
+                s.handlers.remove(handler);
+                if (s.handlers.isEmpty()) {
+                    s.eventSource.shutdown();
+                    return null;
+                }
+                return s;
+            });
+            dispatchIndex.clear();
         }
     }
 
     @Override
     public <E extends Event> void unsubscribe(Class<E> event) {
-        EventSource eventSource = eventSourceMap.remove(event);
-        if (eventSource != null) {
-            eventSource.shutdown();
+        Source source = sourceMap.remove(event);
+        if (source != null) {
+            dispatchIndex.clear();
+            source.eventSource.shutdown();
         }
     }
 
@@ -80,9 +106,7 @@ public class AsyncEventBus<Event extends ameba.event.Event> implements EventBus<
     @SuppressWarnings("all")
     public <E extends Event> void publish(E event) {
         if (event != null) {
-            EventSource<Event> eventSource = (EventSource<Event>) eventSourceMap.get(event.getClass());
-
-            if (eventSource != null) {
+            for (EventSource eventSource : getEventSources(event.getClass())) {
                 try {
                     eventSource.notify(event);
                 } catch (SuspendExecution e) {
@@ -92,17 +116,56 @@ public class AsyncEventBus<Event extends ameba.event.Event> implements EventBus<
         }
     }
 
+    @Override
+    public boolean hasSubscribers(Class<? extends Event> event) {
+        return getEventSources(event).length > 0;
+    }
+
     /**
      * shutdown event bus
      */
     public void shutdown() {
-        eventSourceMap.values().forEach(EventSource::shutdown);
+        sourceMap.values().forEach(source -> source.eventSource.shutdown());
+    }
+
+    /**
+     * event sources of the event class, it's super classes and interfaces
+     *
+     * @param eventClass event class
+     * @return event sources, never null
+     */
+    private EventSource[] getEventSources(Class<?> eventClass) {
+        EventSource[] sources = dispatchIndex.get(eventClass);
+        if (sources == null) {
+            sources = dispatchIndex.computeIfAbsent(eventClass, this::resolveEventSources);
+        }
+        return sources;
+    }
+
+    private EventSource[] resolveEventSources(Class<?> eventClass) {
+        List<EventSource> result = Lists.newArrayList();
+        for (Class<?> type : BasicEventBus.getEventTypes(eventClass)) {
+            Source source = sourceMap.get(type);
+            if (source != null) {
+                result.add(source.eventSource);
+            }
+        }
+        return result.isEmpty() ? EMPTY_SOURCES : result.toArray(new EventSource[result.size()]);
     }
 
     private <E extends Event> EventHandler handler(Class<E> event, Listener<E> listener) {
         return new Handler<>(event, listener);
     }
 
+    private static class Source {
+        final EventSource eventSource;
+        final Set<EventHandler> handlers = Sets.newConcurrentHashSet();
+
+        Source(EventSource eventSource) {
+            this.eventSource = eventSource;
+        }
+    }
+
     private class Handler<E extends ameba.event.Event> implements EventHandler<E> {
 
         private Class<E> event;
@@ -115,7 +178,18 @@ public class AsyncEventBus<Event extends ameba.event.Event> implements EventBus<
 
         @Override
         public void handleEvent(E event) {
-            listener.onReceive(event);
+            if (!EventBusMetrics.isEnabled()) {
+                listener.onReceive(event);
+                return;
+            }
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                listener.onReceive(event);
+                failed = false;
+            } finally {
+                EventBusMetrics.recordReceive(listener, System.nanoTime() - start, failed);
+            }
         }
 
         @Override
@@ -2,45 +2,175 @@ package ameba.event;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
 
 /**
+ * <p>BasicEventBus class.</p>
+ * <p>
+ * Listeners are registered by event class, publish dispatch to all listeners
+ * registered for the event class and it's super classes and interfaces.
+ * The flattened listener array per concrete event class is resolved once and
+ * rebuilt only after subscribe or unsubscribe.
+ * </p>
+ *
  * @author icode
  */
 public class BasicEventBus<Event extends ameba.event.Event> implements EventBus<Event> {
     private static final Logger logger = LoggerFactory.getLogger(EventBus.class);
+    private static final Listener[] EMPTY_LISTENERS = new Listener[0];
+    private static final Map<Class<?>, List<Class<?>>> EVENT_TYPES = Maps.newConcurrentMap();
+
     private final Map<Class<? extends Event>, CopyOnWriteArrayList<Listener<? extends Event>>> listeners
             = Maps.newConcurrentMap();
+    private final Map<Class<?>, Listener[]> dispatchIndex = Maps.newConcurrentMap();
+
+    /**
+     * event class and all super classes and interfaces which is a {@link ameba.event.Event},
+     * the event class first, then super classes, then interfaces.
+     *
+     * @param eventClass event class
+     * @return event types
+     */
+    static List<Class<?>> getEventTypes(Class<?> eventClass) {
+        return EVENT_TYPES.computeIfAbsent(eventClass, BasicEventBus::resolveEventTypes);
+    }
+
+    private static List<Class<?>> resolveEventTypes(Class<?> eventClass) {
+        Set<Class<?>> types = Sets.newLinkedHashSet();
+        List<Class<?>> interfaces = Lists.newArrayList();
+        for (Class<?> clazz = eventClass; clazz != null; clazz = clazz.getSuperclass()) {
+            if (ameba.event.Event.class.isAssignableFrom(clazz)) {
+                types.add(clazz);
+            }
+            Collections.addAll(interfaces, clazz.getInterfaces());
+        }
+        for (int i = 0; i < interfaces.size(); i++) {
+            Class<?> inf = interfaces.get(i);
+            if (ameba.event.Event.class.isAssignableFrom(inf) && types.add(inf)) {
+                Collections.addAll(interfaces, inf.getInterfaces());
+            }
+        }
+        return Collections.unmodifiableList(Lists.newArrayList(types));
+    }
 
     public <E extends Event> void subscribe(Class<E> event, final Listener<E> listener) {
         listeners.computeIfAbsent(event, k -> Lists.newCopyOnWriteArrayList()).add(listener);
+        dispatchIndex.clear();
     }
 
     public <E extends Event> void unsubscribe(Class<E> event, final Listener<E> listener) {
         CopyOnWriteArrayList<Listener<? extends Event>> ls = listeners.get(event);
-        if (ls != null)
-            ls.remove(listener);
+        if (ls != null && ls.remove(listener)) {
+            dispatchIndex.clear();
+        }
     }
 
     public <E extends Event> void unsubscribe(Class<E> event) {
-        listeners.remove(event);
+        if (listeners.remove(event) != null) {
+            dispatchIndex.clear();
+        }
+    }
+
+    /**
+     * get all listeners which receive the event class,
+     * include listeners subscribed to super classes and interfaces
+     *
+     * @param eventClass event class
+     * @return listeners, never null
+     */
+    protected Listener[] getListeners(Class<?> eventClass) {
+        Listener[] ls = dispatchIndex.get(eventClass);
+        if (ls == null) {
+            // ConcurrentHashMap.clear() waits on the computing bin,
+            // so a stale array can't survive a subscribe or unsubscribe
+            ls = dispatchIndex.computeIfAbsent(eventClass, this::resolveListeners);
+        }
+        return ls;
+    }
+
+    private Listener[] resolveListeners(Class<?> eventClass) {
+        List<Listener> result = Lists.newArrayList();
+        for (Class<?> type : getEventTypes(eventClass)) {
+            CopyOnWriteArrayList<Listener<? extends Event>> ls = listeners.get(type);
+            if (ls != null) {
+                result.addAll(ls);
+            }
+        }
+        return result.isEmpty() ? EMPTY_LISTENERS : result.toArray(new Listener[result.size()]);
+    }
+
+    @Override
+    public boolean hasSubscribers(Class<? extends Event> event) {
+        return getListeners(event).length > 0;
     }
 
-    @SuppressWarnings("unchecked")
     public <E extends Event> void publish(E event) {
-        CopyOnWriteArrayList ls = listeners.get(event.getClass());
-        if (ls != null) {
-            ls.forEach(listener -> {
-                try {
-                    ((Listener<E>) listener).onReceive(event);
-                } catch (Exception e) {
-                    logger.error(event.getClass().getName() + " event handler has a error", e);
-                }
-            });
+        if (EventBusMetrics.isEnabled()) {
+            EventBusMetrics.recordPublish(event.getClass());
+        }
+        doPublish(event);
+    }
+
+    /**
+     * publish event only to the listeners matched the filter, async listeners are not included.
+     * the event is part of a publish, so it is not recorded to the publish count of metrics
+     *
+     * @param event  a {@link ameba.event.Event} object.
+     * @param filter listener filter
+     * @param <E>    event type
+     * @since 0.1.13
+     */
+    public <E extends Event> void publish(E event, Predicate<Listener> filter) {
+        Listener[] ls = getListeners(event.getClass());
+        for (Listener listener : ls) {
+            if (filter.test(listener)) {
+                receive(listener, event);
+            }
+        }
+    }
+
+    /**
+     * deliver event to listeners, the publish is already recorded
+     *
+     * @param event a {@link ameba.event.Event} object.
+     * @param <E>   event type
+     */
+    protected <E extends Event> void doPublish(E event) {
+        Listener[] ls = getListeners(event.getClass());
+        for (Listener listener : ls) {
+            receive(listener, event);
+        }
+    }
+
+    /**
+     * call listener, record latency if metrics enabled and log the error
+     *
+     * @param listener a {@link ameba.event.Listener} object.
+     * @param event    a {@link ameba.event.Event} object.
+     */
+    @SuppressWarnings("unchecked")
+    protected void receive(Listener listener, ameba.event.Event event) {
+        boolean metrics = EventBusMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0;
+        boolean failed = false;
+        try {
+            listener.onReceive(event);
+        } catch (Exception e) {
+            failed = true;
+            logger.error(event.getClass().getName() + " event handler has a error", e);
+        } finally {
+            if (metrics) {
+                EventBusMetrics.recordReceive(listener, System.nanoTime() - start, failed);
+            }
         }
     }
 }
@@ -0,0 +1,28 @@
+package ameba.event;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Async listener which receive events in batches.
+ * <p>
+ * Batches are delivered by event bus which dispatch events in batches, e.g. {@link RingBufferEventBus},
+ * other event bus deliver events one by one as a singleton list.
+ * </p>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+public interface BatchListener<E extends Event> extends AsyncListener<E> {
+    /**
+     * <p>onBatch.</p>
+     *
+     * @param events events in publish order
+     */
+    void onBatch(List<E> events);
+
+    @Override
+    default void onReceive(E event) {
+        onBatch(Collections.singletonList(event));
+    }
+}
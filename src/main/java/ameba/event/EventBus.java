@@ -11,6 +11,11 @@ import java.lang.reflect.Method;
  */
 public interface EventBus<Event extends ameba.event.Event> {
 
+    /**
+     * Constant <code>ASYNC_BACKEND_PROPERTY="ameba.event.async.backend"</code>,
+     * <code>quasar</code> (default), <code>ringBuffer</code> or <code>executor</code>
+     */
+    String ASYNC_BACKEND_PROPERTY = "ameba.event.async.backend";
 
     /**
      * <p>createMix.</p>
@@ -31,6 +36,25 @@ public interface EventBus<Event extends ameba.event.Event> {
         return new BasicEventBus();
     }
 
+    /**
+     * create async event bus of backend selected by {@link #ASYNC_BACKEND_PROPERTY} system property
+     *
+     * @param <Event> event
+     * @return a {@link ameba.event.EventBus} object.
+     */
+    static <Event extends ameba.event.Event> EventBus<Event> createAsync() {
+        String backend = System.getProperty(ASYNC_BACKEND_PROPERTY);
+        if (backend != null) {
+            switch (backend.trim().toLowerCase()) {
+                case "ringbuffer":
+                    return RingBufferEventBus.create();
+                case "executor":
+                    return ExecutorEventBus.create();
+            }
+        }
+        return AsyncEventBus.create();
+    }
+
     /**
      * <p>subscribe.</p>
      *
@@ -88,44 +112,18 @@ public interface EventBus<Event extends ameba.event.Event> {
         } else {
             objClass = obj.getClass();
         }
-        final Object finalObj = obj;
         for (Method method : objClass.getDeclaredMethods()) {
             Subscribe subscribe = method.getAnnotation(Subscribe.class);
             if (subscribe != null && !method.isBridge()) {
-                Class[] argsClass = method.getParameterTypes();
-                final Class<Event>[] needEvent = new Class[argsClass.length];
-                Class<Event>[] events = (Class<Event>[]) subscribe.value();
-
-                for (int i = 0; i < argsClass.length; i++) {
-                    if (ameba.event.Event.class.isAssignableFrom(argsClass[i])) {
-                        needEvent[i] = argsClass[i];
-                    }
-                }
+                Class[] events = subscribe.value();
 
-                if (subscribe.value().length == 0) {
-                    events = needEvent;
+                if (events.length == 0) {
+                    events = method.getParameterTypes();
                 }
 
-                method.setAccessible(true);
-                for (final Class<Event> event : events) {
-                    if (event == null) continue;
-                    Listener<Event> listener = ev -> {
-                        Object[] args = new Object[needEvent.length];
-                        try {
-                            for (int i = 0; i < needEvent.length; i++) {
-                                if (needEvent[i] != null && needEvent[i].isAssignableFrom(event)) {
-                                    args[i] = ev;
-                                }
-                            }
-                            method.invoke(finalObj, args);
-                        } catch (IllegalAccessException e) {
-                            throw new AmebaException("handle event error, " + method.getName()
-                                    + " method must be not have arguments or extends from Event argument", e);
-                        } catch (Exception e) {
-                            throw new AmebaException("handle " + method.getName() + " event error. ", e);
-                        }
-                    };
-                    subscribe(event, subscribe.async() ? (AsyncListener<Event>) listener::onReceive : listener);
+                for (final Class event : events) {
+                    if (!ameba.event.Event.class.isAssignableFrom(event)) continue;
+                    subscribe(event, SubscriberInvoker.create(obj, method, event, subscribe.async()));
                 }
             }
         }
@@ -153,18 +151,40 @@ public interface EventBus<Event extends ameba.event.Event> {
      */
     <E extends Event> void publish(E event);
 
+    /**
+     * has any listener would receive the event class, publisher can skip creating the event if not
+     *
+     * @param event a {@link java.lang.Class} object.
+     * @return true if has subscribers
+     * @since 0.1.13
+     */
+    default boolean hasSubscribers(Class<? extends Event> event) {
+        return true;
+    }
+
     class Mixed<Event extends ameba.event.Event> extends BasicEventBus<Event> {
 
-        private final AsyncEventBus<Event> asyncEventBus;
+        private volatile EventBus<Event> asyncEventBus;
 
         Mixed() {
-            asyncEventBus = AsyncEventBus.create();
+        }
+
+        private EventBus<Event> getAsyncEventBus() {
+            if (asyncEventBus == null) {
+                synchronized (this) {
+                    if (asyncEventBus == null) {
+                        // create on first async listener, so the backend can be configured by application
+                        asyncEventBus = createAsync();
+                    }
+                }
+            }
+            return asyncEventBus;
         }
 
         @Override
         public <E extends Event> void subscribe(Class<E> event, final Listener<E> listener) {
             if (listener instanceof AsyncListener) {
-                asyncEventBus.subscribe(event, (AsyncListener<E>) listener);
+                getAsyncEventBus().subscribe(event, listener);
             } else {
                 super.subscribe(event, listener);
             }
@@ -173,7 +193,9 @@ public interface EventBus<Event extends ameba.event.Event> {
         @Override
         public <E extends Event> void unsubscribe(Class<E> event, final Listener<E> listener) {
             if (listener instanceof AsyncListener) {
-                asyncEventBus.unsubscribe(event, listener);
+                if (asyncEventBus != null) {
+                    asyncEventBus.unsubscribe(event, listener);
+                }
             } else {
                 super.unsubscribe(event, listener);
             }
@@ -181,15 +203,45 @@ public interface EventBus<Event extends ameba.event.Event> {
 
         @Override
         public <E extends Event> void unsubscribe(Class<E> event) {
-            asyncEventBus.unsubscribe(event);
+            if (asyncEventBus != null) {
+                asyncEventBus.unsubscribe(event);
+            }
             super.unsubscribe(event);
         }
 
+        @Override
+        public boolean hasSubscribers(Class<? extends Event> event) {
+            EventBus<Event> async = asyncEventBus;
+            return super.hasSubscribers(event) || async != null && async.hasSubscribers(event);
+        }
+
         @Override
         public <E extends Event> void publish(E event) {
             if (event == null) return;
-            asyncEventBus.publish(event);
             super.publish(event);
         }
+
+        @Override
+        protected <E extends Event> void doPublish(E event) {
+            publishAsync(event);
+            super.doPublish(event);
+        }
+
+        /**
+         * publish event only to the async listeners
+         *
+         * @param event a {@link ameba.event.Event} object.
+         * @param <E>   event type
+         * @since 0.1.13
+         */
+        public <E extends Event> void publishAsync(E event) {
+            EventBus<Event> async = asyncEventBus;
+            if (async instanceof BasicEventBus) {
+                // publish is recorded once by mixed event bus
+                ((BasicEventBus<Event>) async).doPublish(event);
+            } else if (async != null) {
+                async.publish(event);
+            }
+        }
     }
 }
@@ -0,0 +1,244 @@
+package ameba.event;
+
+import ameba.lib.LatencyHistogram;
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>Event bus instrumentation.</p>
+ * <p>
+ * Records publish count per event class, latency histogram and failure count per listener
+ * and backlog depth of async event bus. Disabled by default, nothing is recorded until
+ * {@link #setEnabled(boolean)} or the <code>ameba.event.metrics.enabled</code> system property.
+ * </p>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+public class EventBusMetrics implements EventBusMetricsMXBean {
+    /**
+     * Constant <code>ENABLED_PROPERTY="ameba.event.metrics.enabled"</code>
+     */
+    public static final String ENABLED_PROPERTY = "ameba.event.metrics.enabled";
+    /**
+     * Constant <code>OBJECT_NAME="ameba:type=EventBus,name=Metrics"</code>
+     */
+    public static final String OBJECT_NAME = "ameba:type=EventBus,name=Metrics";
+
+    private static final Logger logger = LoggerFactory.getLogger(EventBusMetrics.class);
+    private static final EventBusMetrics INSTANCE = new EventBusMetrics();
+    private static volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    private final Map<Class<?>, LongAdder> publishCounts = Maps.newConcurrentMap();
+    // weak identity keys, unsubscribed listeners are not retained
+    private final Map<Object, ListenerMetrics> listenerMetrics = new MapMaker().weakKeys().makeMap();
+    private final Map<String, LongSupplier> backlogs = Maps.newConcurrentMap();
+
+    private EventBusMetrics() {
+    }
+
+    /**
+     * <p>getInstance.</p>
+     *
+     * @return a {@link ameba.event.EventBusMetrics} object.
+     */
+    public static EventBusMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * <p>isEnabled.</p>
+     *
+     * @return a boolean.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * <p>Setter for the field <code>enabled</code>.</p>
+     *
+     * @param enabled a boolean.
+     */
+    public static void setEnabled(boolean enabled) {
+        EventBusMetrics.enabled = enabled;
+    }
+
+    /**
+     * register metrics MBean to platform MBean server
+     */
+    public static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // registered by before application
+        } catch (Exception e) {
+            logger.error("register event bus metrics MBean has error", e);
+        }
+    }
+
+    static void recordPublish(Class<?> eventClass) {
+        LongAdder adder = INSTANCE.publishCounts.get(eventClass);
+        if (adder == null) {
+            adder = INSTANCE.publishCounts.computeIfAbsent(eventClass, k -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    static void recordReceive(Object listener, long nanos, boolean failed) {
+        ListenerMetrics metrics = INSTANCE.listenerMetrics.get(listener);
+        if (metrics == null) {
+            metrics = INSTANCE.listenerMetrics.computeIfAbsent(listener, ListenerMetrics::new);
+        }
+        metrics.histogram.record(nanos);
+        if (failed) {
+            metrics.failures.increment();
+        }
+    }
+
+    static void registerBacklog(String name, LongSupplier backlog) {
+        INSTANCE.backlogs.put(name, backlog);
+    }
+
+    static void unregisterBacklog(String name) {
+        INSTANCE.backlogs.remove(name);
+    }
+
+    private static String nameOf(Object listener) {
+        String name = listener.toString();
+        // default Object.toString, use class name without identity hash
+        int index = name.lastIndexOf('@');
+        if (index != -1 && name.startsWith(listener.getClass().getName())) {
+            name = name.substring(0, index);
+        }
+        return name;
+    }
+
+    @Override
+    public Map<String, Long> getPublishCounts() {
+        Map<String, Long> result = Maps.newTreeMap();
+        publishCounts.forEach((k, v) -> result.put(k.getName(), v.sum()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getBacklogs() {
+        Map<String, Long> result = Maps.newTreeMap();
+        backlogs.forEach((k, v) -> result.put(k, v.getAsLong()));
+        return result;
+    }
+
+    @Override
+    public List<ListenerStats> getListeners() {
+        List<ListenerStats> result = Lists.newArrayList();
+        listenerMetrics.values().forEach(metrics -> result.add(new ListenerStats(metrics)));
+        result.sort((a, b) -> Long.compare(b.getP99Micros(), a.getP99Micros()));
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        publishCounts.clear();
+        listenerMetrics.clear();
+    }
+
+    /**
+     * snapshot of all metrics
+     *
+     * @return a {@link java.util.Map} object.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = Maps.newLinkedHashMap();
+        result.put("enabled", isEnabled());
+        result.put("publishCounts", getPublishCounts());
+        result.put("listeners", getListeners());
+        result.put("backlogs", getBacklogs());
+        return result;
+    }
+
+    private static class ListenerMetrics {
+        final String name;
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final LongAdder failures = new LongAdder();
+
+        ListenerMetrics(Object listener) {
+            this.name = nameOf(listener);
+        }
+    }
+
+    /**
+     * stats of one listener, latencies in microseconds
+     */
+    public static class ListenerStats {
+        private final String name;
+        private final long count;
+        private final long failures;
+        private final long meanMicros;
+        private final long p50Micros;
+        private final long p90Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+
+        private ListenerStats(ListenerMetrics metrics) {
+            LatencyHistogram histogram = metrics.histogram;
+            this.name = metrics.name;
+            this.count = histogram.getCount();
+            this.failures = metrics.failures.sum();
+            this.meanMicros = toMicros(histogram.getMean());
+            this.p50Micros = toMicros(histogram.getValueAtPercentile(50));
+            this.p90Micros = toMicros(histogram.getValueAtPercentile(90));
+            this.p99Micros = toMicros(histogram.getValueAtPercentile(99));
+            this.maxMicros = toMicros(histogram.getMax());
+        }
+
+        private static long toMicros(long nanos) {
+            return TimeUnit.NANOSECONDS.toMicros(nanos);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getMeanMicros() {
+            return meanMicros;
+        }
+
+        public long getP50Micros() {
+            return p50Micros;
+        }
+
+        public long getP90Micros() {
+            return p90Micros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ameba.event;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX interface of event bus metrics
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+public interface EventBusMetricsMXBean {
+    /**
+     * @return publish count by event class name
+     */
+    Map<String, Long> getPublishCounts();
+
+    /**
+     * @return backlog depth by async event bus name
+     */
+    Map<String, Long> getBacklogs();
+
+    /**
+     * @return stats of listeners, slowest first
+     */
+    List<EventBusMetrics.ListenerStats> getListeners();
+
+    /**
+     * clear publish counts and listener stats
+     */
+    void reset();
+}
@@ -0,0 +1,76 @@
+package ameba.event;
+
+import org.apache.commons.lang3.StringUtils;
+import org.glassfish.jersey.process.Inflector;
+import org.glassfish.jersey.server.model.ModelProcessor;
+import org.glassfish.jersey.server.model.Resource;
+import org.glassfish.jersey.server.model.ResourceModel;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.Configuration;
+import javax.ws.rs.core.Feature;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * <p>Expose event bus metrics over JMX and a JSON resource.</p>
+ * <p>
+ * Enabled by <code>event.metrics.enabled=true</code>, the resource path is
+ * <code>event.metrics.resource.path</code>, the MBean is registered when <code>jmx.enabled=true</code>.
+ * </p>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+public class EventMetricsFeature implements Feature {
+    /**
+     * Constant <code>ENABLED_KEY="event.metrics.enabled"</code>
+     */
+    public static final String ENABLED_KEY = "event.metrics.enabled";
+    /**
+     * Constant <code>RESOURCE_PATH_KEY="event.metrics.resource.path"</code>
+     */
+    public static final String RESOURCE_PATH_KEY = "event.metrics.resource.path";
+    private static final String DEFAULT_RESOURCE_PATH = "/@event/metrics";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean configure(FeatureContext context) {
+        Configuration configuration = context.getConfiguration();
+        if (!Boolean.parseBoolean((String) configuration.getProperty(ENABLED_KEY))) {
+            return false;
+        }
+        EventBusMetrics.setEnabled(true);
+
+        if (Boolean.parseBoolean((String) configuration.getProperty("jmx.enabled"))) {
+            EventBusMetrics.registerMBean();
+        }
+
+        String path = StringUtils.defaultIfBlank(
+                (String) configuration.getProperty(RESOURCE_PATH_KEY), DEFAULT_RESOURCE_PATH);
+        final String resourcePath = path.startsWith("/") ? path : "/" + path;
+
+        context.register(new ModelProcessor() {
+            @Override
+            public ResourceModel processResourceModel(ResourceModel resourceModel, Configuration configuration) {
+                ResourceModel.Builder resourceModelBuilder = new ResourceModel.Builder(resourceModel, false);
+                Resource.Builder resourceBuilder = Resource.builder(resourcePath);
+                resourceBuilder.addMethod(HttpMethod.GET)
+                        .produces(MediaType.APPLICATION_JSON_TYPE)
+                        .handledBy((Inflector<ContainerRequestContext, Object>) request ->
+                                EventBusMetrics.getInstance().snapshot());
+                resourceModelBuilder.addResource(resourceBuilder.build());
+                return resourceModelBuilder.build();
+            }
+
+            @Override
+            public ResourceModel processSubResource(ResourceModel subResourceModel, Configuration configuration) {
+                return subResourceModel;
+            }
+        });
+        return true;
+    }
+}
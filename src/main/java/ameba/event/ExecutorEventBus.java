@@ -0,0 +1,213 @@
+package ameba.event;
+
+import ameba.container.event.ShutdownEvent;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Async event bus which run listeners on an {@link ExecutorService}.</p>
+ * <p>
+ * Async listeners need not Quasar instrumentation, they run on virtual threads when the runtime
+ * has them and on a bounded fork join pool otherwise. When ordered, events of the same class are
+ * delivered one by one in publish order, different event classes still run concurrently.
+ * </p>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+public class ExecutorEventBus<Event extends ameba.event.Event> extends BasicEventBus<Event> {
+    /**
+     * Constant <code>THREADS_PROPERTY="ameba.event.async.executor.threads"</code>
+     */
+    public static final String THREADS_PROPERTY = "ameba.event.async.executor.threads";
+    /**
+     * Constant <code>VIRTUAL_PROPERTY="ameba.event.async.executor.virtual"</code>
+     */
+    public static final String VIRTUAL_PROPERTY = "ameba.event.async.executor.virtual";
+    /**
+     * Constant <code>ORDERED_PROPERTY="ameba.event.async.executor.ordered"</code>
+     */
+    public static final String ORDERED_PROPERTY = "ameba.event.async.executor.ordered";
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorEventBus.class);
+    private static final AtomicInteger BUS_NUMBER = new AtomicInteger();
+
+    private final ExecutorService executor;
+    private final boolean ordered;
+    private final Map<Class<?>, SerialExecutor> serialExecutors = Maps.newConcurrentMap();
+    private final AtomicLong pending = new AtomicLong();
+    private final String name = "ameba-event-executor-bus-" + BUS_NUMBER.incrementAndGet();
+
+    /**
+     * <p>Constructor for ExecutorEventBus.</p>
+     *
+     * @param executor executor which run listeners, shutdown with the event bus
+     * @param ordered  deliver events of the same class in publish order
+     */
+    @SuppressWarnings("unchecked")
+    public ExecutorEventBus(ExecutorService executor, boolean ordered) {
+        this.executor = executor;
+        this.ordered = ordered;
+        subscribe((Class<Event>) ShutdownEvent.class, event -> shutdown());
+        EventBusMetrics.registerBacklog(name, this::getBacklog);
+    }
+
+    /**
+     * create executor event bus configured by system properties
+     *
+     * @param <Event> event
+     * @return a {@link ameba.event.ExecutorEventBus} object.
+     */
+    public static <Event extends ameba.event.Event> ExecutorEventBus<Event> create() {
+        ExecutorService executor = null;
+        if (!"false".equalsIgnoreCase(System.getProperty(VIRTUAL_PROPERTY))) {
+            executor = newVirtualThreadExecutor();
+        }
+        if (executor == null) {
+            Integer threads = Ints.tryParse(StringUtils.defaultString(System.getProperty(THREADS_PROPERTY)).trim());
+            executor = newForkJoinPool(threads == null || threads < 1
+                    ? Runtime.getRuntime().availableProcessors() : threads);
+        }
+        return new ExecutorEventBus<>(executor, Boolean.parseBoolean(System.getProperty(ORDERED_PROPERTY)));
+    }
+
+    /**
+     * create virtual thread per task executor
+     *
+     * @return executor, null if the runtime has not virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (Exception e) {
+            logger.warn("create virtual thread executor has error", e);
+            return null;
+        }
+    }
+
+    /**
+     * create fifo fork join pool of daemon threads
+     *
+     * @param parallelism max running threads
+     * @return executor
+     */
+    public static ExecutorService newForkJoinPool(int parallelism) {
+        final AtomicInteger number = new AtomicInteger();
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("ameba-event-executor-" + number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, null, true);
+    }
+
+    @Override
+    public <E extends Event> void publish(E event) {
+        if (event == null) return;
+        super.publish(event);
+    }
+
+    @Override
+    protected <E extends Event> void doPublish(E event) {
+        if (executor.isShutdown()) return;
+        Listener[] listeners = getListeners(event.getClass());
+        if (listeners.length == 0) return;
+        if (ordered) {
+            Runnable task = track(() -> {
+                for (Listener listener : listeners) {
+                    receive(listener, event);
+                }
+            });
+            serialExecutors.computeIfAbsent(event.getClass(), k -> new SerialExecutor()).execute(task);
+        } else {
+            for (Listener listener : listeners) {
+                if (!submit(track(() -> receive(listener, event)))) {
+                    pending.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    private Runnable track(Runnable task) {
+        pending.incrementAndGet();
+        return () -> {
+            try {
+                task.run();
+            } finally {
+                pending.decrementAndGet();
+            }
+        };
+    }
+
+    private boolean submit(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.warn("event executor is shutdown, event is discarded");
+            return false;
+        }
+    }
+
+    /**
+     * listener tasks submitted but not yet finished
+     *
+     * @return backlog size
+     */
+    public long getBacklog() {
+        return pending.get();
+    }
+
+    /**
+     * shutdown event bus
+     */
+    public void shutdown() {
+        EventBusMetrics.unregisterBacklog(name);
+        executor.shutdown();
+    }
+
+    /**
+     * run tasks one by one on the executor in submit order
+     */
+    private class SerialExecutor implements Executor, Runnable {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+            if (size.getAndIncrement() == 0 && !submit(this)) {
+                // discard the queued tasks, so the size is back to 0 and a later task is submitted again
+                do {
+                    tasks.poll();
+                    pending.decrementAndGet();
+                } while (size.decrementAndGet() != 0);
+            }
+        }
+
+        @Override
+        public void run() {
+            do {
+                Runnable task = tasks.poll();
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    logger.error("event listener task has a error", e);
+                }
+            } while (size.decrementAndGet() != 0);
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package ameba.event;
+
+import ameba.container.event.ShutdownEvent;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * <p>Async event bus backed by a pre-allocated ring buffer.</p>
+ * <p>
+ * Events are published into a bounded multi producer ring buffer and delivered in batches
+ * by one dispatcher thread. When the ring buffer is full the {@link OverflowPolicy} decide to
+ * block the publisher, drop the oldest event or run listeners on the publisher thread.
+ * </p>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+public class RingBufferEventBus<Event extends ameba.event.Event> extends BasicEventBus<Event> {
+    /**
+     * Constant <code>SIZE_PROPERTY="ameba.event.async.ringBuffer.size"</code>
+     */
+    public static final String SIZE_PROPERTY = "ameba.event.async.ringBuffer.size";
+    /**
+     * Constant <code>BATCH_SIZE_PROPERTY="ameba.event.async.ringBuffer.batchSize"</code>
+     */
+    public static final String BATCH_SIZE_PROPERTY = "ameba.event.async.ringBuffer.batchSize";
+    /**
+     * Constant <code>WAIT_STRATEGY_PROPERTY="ameba.event.async.ringBuffer.waitStrategy"</code>
+     */
+    public static final String WAIT_STRATEGY_PROPERTY = "ameba.event.async.ringBuffer.waitStrategy";
+    /**
+     * Constant <code>OVERFLOW_PROPERTY="ameba.event.async.ringBuffer.overflow"</code>
+     */
+    public static final String OVERFLOW_PROPERTY = "ameba.event.async.ringBuffer.overflow";
+
+    private static final Logger logger = LoggerFactory.getLogger(RingBufferEventBus.class);
+    private static final int DEFAULT_SIZE = 4096;
+    private static final int DEFAULT_BATCH_SIZE = 64;
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final Object[] entries;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final int batchSize;
+    private final WaitStrategy waitStrategy;
+    private final OverflowPolicy overflowPolicy;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    /**
+     * <p>Constructor for RingBufferEventBus.</p>
+     *
+     * @param size           ring buffer size, round up to power of 2
+     * @param batchSize      max events delivered in one batch
+     * @param waitStrategy   dispatcher wait strategy
+     * @param overflowPolicy overflow policy when the ring buffer is full
+     */
+    @SuppressWarnings("unchecked")
+    public RingBufferEventBus(int size, int batchSize, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy) {
+        if (size < 2 || size > 1 << 30) {
+            throw new IllegalArgumentException("ring buffer size must be between 2 and 2^30");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be greater than 0");
+        }
+        int capacity = Integer.highestOneBit(size - 1) << 1;
+        this.mask = capacity - 1;
+        this.entries = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.batchSize = batchSize;
+        this.waitStrategy = waitStrategy;
+        this.overflowPolicy = overflowPolicy;
+
+        subscribe((Class<Event>) ShutdownEvent.class, event -> shutdown());
+
+        dispatcher = new Thread(this::dispatch, "ameba-event-ring-buffer-" + THREAD_NUMBER.incrementAndGet());
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        EventBusMetrics.registerBacklog(dispatcher.getName(), this::getBacklog);
+    }
+
+    /**
+     * create ring buffer event bus configured by system properties
+     *
+     * @param <Event> event
+     * @return a {@link ameba.event.RingBufferEventBus} object.
+     */
+    public static <Event extends ameba.event.Event> RingBufferEventBus<Event> create() {
+        return new RingBufferEventBus<>(
+                getIntProperty(SIZE_PROPERTY, DEFAULT_SIZE),
+                getIntProperty(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE),
+                WaitStrategy.of(System.getProperty(WAIT_STRATEGY_PROPERTY)),
+                OverflowPolicy.of(System.getProperty(OVERFLOW_PROPERTY))
+        );
+    }
+
+    private static int getIntProperty(String key, int defaultValue) {
+        Integer value = Ints.tryParse(StringUtils.defaultString(System.getProperty(key)).trim());
+        return value == null ? defaultValue : value;
+    }
+
+    private boolean offer(Object event) {
+        long pos = tail.get();
+        for (; ; ) {
+            int index = (int) pos & mask;
+            long dif = sequences.get(index) - pos;
+            if (dif == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    entries[index] = event;
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+            } else if (dif < 0) {
+                return false;
+            }
+            pos = tail.get();
+        }
+    }
+
+    private Object poll() {
+        long pos = head.get();
+        for (; ; ) {
+            int index = (int) pos & mask;
+            long dif = sequences.get(index) - (pos + 1);
+            if (dif == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    Object event = entries[index];
+                    entries[index] = null;
+                    sequences.set(index, pos + mask + 1);
+                    return event;
+                }
+            } else if (dif < 0) {
+                return null;
+            }
+            pos = head.get();
+        }
+    }
+
+    private boolean hasEvents() {
+        return head.get() != tail.get();
+    }
+
+    @Override
+    public <E extends Event> void publish(E event) {
+        if (event == null) return;
+        super.publish(event);
+    }
+
+    @Override
+    protected <E extends Event> void doPublish(E event) {
+        if (!running) return;
+        if (!offer(event)) {
+            switch (overflowPolicy) {
+                case CALLER_RUNS:
+                    super.doPublish(event);
+                    return;
+                case DROP_OLDEST:
+                    do {
+                        if (poll() != null) {
+                            dropped.incrementAndGet();
+                        }
+                    } while (!offer(event));
+                    break;
+                default:
+                    int counter = 0;
+                    while (!offer(event)) {
+                        if (!running) return;
+                        if (++counter < 100) {
+                            Thread.yield();
+                        } else {
+                            LockSupport.parkNanos(100_000L);
+                        }
+                    }
+            }
+        }
+        waitStrategy.signalAll();
+    }
+
+    private void dispatch() {
+        Object[] batch = new Object[batchSize];
+        int counter = 0;
+        while (running) {
+            int size = 0;
+            Object event;
+            while (size < batchSize && (event = poll()) != null) {
+                batch[size++] = event;
+            }
+            if (size == 0) {
+                try {
+                    counter = waitStrategy.idle(counter, this::hasEvents);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                continue;
+            }
+            counter = 0;
+            try {
+                deliver(batch, size);
+            } catch (Throwable e) {
+                // keep the only dispatcher alive, or the publishers wait forever
+                logger.error("deliver events has a error", e);
+            }
+            Arrays.fill(batch, 0, size, null);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver(Object[] batch, int size) {
+        Map<BatchListener, List<Event>> batches = null;
+        for (int i = 0; i < size; i++) {
+            Event event = (Event) batch[i];
+            for (Listener listener : getListeners(event.getClass())) {
+                if (listener instanceof BatchListener) {
+                    if (batches == null) {
+                        batches = Maps.newLinkedHashMap();
+                    }
+                    batches.computeIfAbsent((BatchListener) listener, k -> Lists.newArrayList()).add(event);
+                } else {
+                    receive(listener, event);
+                }
+            }
+        }
+        if (batches != null) {
+            batches.forEach(this::receiveBatch);
+        }
+    }
+
+    /**
+     * call listener, the {@link Error} is logged too, so the dispatcher thread is not killed
+     *
+     * @param listener a {@link ameba.event.Listener} object.
+     * @param event    a {@link ameba.event.Event} object.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void receive(Listener listener, ameba.event.Event event) {
+        boolean metrics = EventBusMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0;
+        boolean failed = false;
+        try {
+            listener.onReceive(event);
+        } catch (Throwable e) {
+            failed = true;
+            logger.error(event.getClass().getName() + " event handler has a error", e);
+        } finally {
+            if (metrics) {
+                EventBusMetrics.recordReceive(listener, System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void receiveBatch(BatchListener listener, List<Event> events) {
+        boolean metrics = EventBusMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0;
+        boolean failed = false;
+        try {
+            listener.onBatch(events);
+        } catch (Throwable e) {
+            failed = true;
+            logger.error("batch event handler has a error", e);
+        } finally {
+            if (metrics) {
+                EventBusMetrics.recordReceive(listener, System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    /**
+     * events published but not yet delivered
+     *
+     * @return backlog size
+     */
+    public long getBacklog() {
+        return Math.max(0, tail.get() - head.get());
+    }
+
+    /**
+     * events dropped by {@link OverflowPolicy#DROP_OLDEST}
+     *
+     * @return dropped count
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * ring buffer capacity
+     *
+     * @return capacity
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * shutdown event bus
+     */
+    public void shutdown() {
+        running = false;
+        EventBusMetrics.unregisterBacklog(dispatcher.getName());
+        if (Thread.currentThread() != dispatcher) {
+            dispatcher.interrupt();
+        }
+    }
+
+    /**
+     * policy when the ring buffer is full
+     */
+    public enum OverflowPolicy {
+        /**
+         * wait until the dispatcher free a slot
+         */
+        BLOCK,
+        /**
+         * drop the oldest events which is not delivered
+         */
+        DROP_OLDEST,
+        /**
+         * deliver the event on publisher thread
+         */
+        CALLER_RUNS;
+
+        /**
+         * parse policy name, e.g. <code>block</code>, <code>dropOldest</code>, <code>caller_runs</code>
+         *
+         * @param name policy name
+         * @return policy, default {@link #BLOCK}
+         */
+        public static OverflowPolicy of(String name) {
+            if (StringUtils.isNotBlank(name)) {
+                String key = name.trim().replace("_", "").replace("-", "");
+                for (OverflowPolicy policy : values()) {
+                    if (policy.name().replace("_", "").equalsIgnoreCase(key)) {
+                        return policy;
+                    }
+                }
+                logger.warn("unknown event bus overflow policy {}, use {}", name, BLOCK);
+            }
+            return BLOCK;
+        }
+    }
+
+    /**
+     * strategy of dispatcher waiting for events
+     */
+    public interface WaitStrategy {
+
+        /**
+         * parse wait strategy name, <code>blocking</code>, <code>sleeping</code>,
+         * <code>yielding</code> or <code>busySpin</code>
+         *
+         * @param name strategy name
+         * @return wait strategy, default sleeping
+         */
+        static WaitStrategy of(String name) {
+            if (StringUtils.isNotBlank(name)) {
+                switch (name.trim().toLowerCase()) {
+                    case "blocking":
+                        return new Blocking();
+                    case "yielding":
+                        return counter -> {
+                            if (counter >= 100) Thread.yield();
+                            return counter + 1;
+                        };
+                    case "busyspin":
+                        return counter -> counter + 1;
+                    case "sleeping":
+                        break;
+                    default:
+                        logger.warn("unknown event bus wait strategy {}, use sleeping", name);
+                }
+            }
+            return counter -> {
+                if (counter >= 200) {
+                    LockSupport.parkNanos(100_000L);
+                } else if (counter >= 100) {
+                    Thread.yield();
+                }
+                return counter + 1;
+            };
+        }
+
+        /**
+         * wait once when no event available
+         *
+         * @param counter times of waited, 0 after events delivered
+         * @return next counter
+         * @throws InterruptedException dispatcher interrupted
+         */
+        int idle(int counter) throws InterruptedException;
+
+        /**
+         * wait once when no event available
+         *
+         * @param counter times of waited, 0 after events delivered
+         * @param ready   check events available
+         * @return next counter
+         * @throws InterruptedException dispatcher interrupted
+         */
+        default int idle(int counter, BooleanSupplier ready) throws InterruptedException {
+            return idle(counter);
+        }
+
+        /**
+         * wake up waiting dispatcher after event published
+         */
+        default void signalAll() {
+        }
+    }
+
+    private static class Blocking implements WaitStrategy {
+        private final Lock lock = new ReentrantLock();
+        private final Condition available = lock.newCondition();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        @Override
+        public int idle(int counter) throws InterruptedException {
+            lock.lock();
+            try {
+                available.await(1, TimeUnit.MILLISECONDS);
+            } finally {
+                lock.unlock();
+            }
+            return 0;
+        }
+
+        @Override
+        public int idle(int counter, BooleanSupplier ready) throws InterruptedException {
+            lock.lock();
+            try {
+                waiters.incrementAndGet();
+                try {
+                    // check again after waiters is visible to publisher, so signal is not lost
+                    while (!ready.getAsBoolean()) {
+                        available.await();
+                    }
+                } finally {
+                    waiters.decrementAndGet();
+                }
+            } finally {
+                lock.unlock();
+            }
+            return 0;
+        }
+
+        @Override
+        public void signalAll() {
+            if (waiters.get() > 0) {
+                lock.lock();
+                try {
+                    available.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
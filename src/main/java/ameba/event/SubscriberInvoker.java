@@ -0,0 +1,103 @@
+package ameba.event;
+
+import ameba.exception.AmebaException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+/**
+ * Listener of {@link Subscribe} method.
+ * <p>
+ * The method handle is resolved at subscribe time and adapted to <code>(Event)void</code>,
+ * the arguments which receive the event are mapped up front and the others are bound to null,
+ * so nothing is allocated or checked when the event is received.
+ * </p>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+class SubscriberInvoker<E extends Event> implements Listener<E> {
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Event.class);
+
+    private final Method method;
+    private final MethodHandle invoker;
+
+    SubscriberInvoker(Method method, MethodHandle invoker) {
+        this.method = method;
+        this.invoker = invoker;
+    }
+
+    /**
+     * create listener for subscribe method
+     *
+     * @param target instance of method declaring class, ignored if method is static
+     * @param method subscribe method
+     * @param event  subscribed event class
+     * @param async  create {@link AsyncListener}
+     * @param <E>    event type
+     * @return listener
+     */
+    static <E extends Event> SubscriberInvoker<E> create(Object target, Method method, Class<E> event, boolean async) {
+        MethodHandle handle;
+        try {
+            method.setAccessible(true);
+            handle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException | SecurityException e) {
+            throw new AmebaException("handle event error, " + method.getName()
+                    + " method must be accessible", e);
+        }
+        if (!Modifier.isStatic(method.getModifiers())) {
+            handle = handle.bindTo(target);
+        }
+        handle = handle.asType(handle.type().changeReturnType(void.class));
+
+        Class<?>[] argsClass = method.getParameterTypes();
+        int eventArgs = 0;
+        // insert from last one, the index of before arguments is not changed
+        for (int i = argsClass.length - 1; i >= 0; i--) {
+            if (Event.class.isAssignableFrom(argsClass[i]) && argsClass[i].isAssignableFrom(event)) {
+                eventArgs++;
+            } else if (argsClass[i].isPrimitive()) {
+                throw new AmebaException("handle event error, " + method.getName()
+                        + " method must be not have arguments or extends from Event argument");
+            } else {
+                handle = MethodHandles.insertArguments(handle, i, (Object) null);
+            }
+        }
+
+        if (eventArgs == 0) {
+            handle = MethodHandles.dropArguments(handle, 0, Event.class);
+        } else {
+            Class<?>[] params = new Class<?>[eventArgs];
+            Arrays.fill(params, Event.class);
+            handle = handle.asType(MethodType.methodType(void.class, params));
+            handle = MethodHandles.permuteArguments(handle, INVOKER_TYPE, new int[eventArgs]);
+        }
+
+        return async ? new Async<>(method, handle) : new SubscriberInvoker<>(method, handle);
+    }
+
+    @Override
+    public void onReceive(E event) {
+        try {
+            invoker.invokeExact((Event) event);
+        } catch (Throwable e) {
+            throw new AmebaException("handle " + method.getName() + " event error. ", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return method.getDeclaringClass().getName() + "#" + method.getName();
+    }
+
+    private static class Async<E extends Event> extends SubscriberInvoker<E> implements AsyncListener<E> {
+        Async(Method method, MethodHandle invoker) {
+            super(method, invoker);
+        }
+    }
+}
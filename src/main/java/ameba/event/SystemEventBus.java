@@ -2,6 +2,8 @@ package ameba.event;
 
 import ameba.container.event.ShutdownEvent;
 
+import java.util.function.Predicate;
+
 /**
  * <p>SystemEventBus class.</p>
  *
@@ -70,6 +72,17 @@ public class SystemEventBus {
         getEventBus().unsubscribe(event, listener);
     }
 
+    /**
+     * <p>hasSubscribers.</p>
+     *
+     * @param event a {@link java.lang.Class} object.
+     * @return true if any listener would receive the event class
+     * @since 0.1.13
+     */
+    public static boolean hasSubscribers(Class<? extends Event> event) {
+        return getEventBus().hasSubscribers(event);
+    }
+
     /**
      * <p>publish.</p>
      *
@@ -78,4 +91,31 @@ public class SystemEventBus {
     public static void publish(Event event) {
         getEventBus().publish(event);
     }
+
+    /**
+     * publish event only to the sync listeners matched the filter
+     *
+     * @param event  a {@link ameba.event.Event} object.
+     * @param filter listener filter
+     * @since 0.1.13
+     */
+    @SuppressWarnings("unchecked")
+    public static void publish(Event event, Predicate<Listener> filter) {
+        ((BasicEventBus) getEventBus()).publish(event, filter);
+    }
+
+    /**
+     * publish event only to the async listeners, use with {@link #publish(Event, Predicate)}
+     * to deliver an event to all listeners part by part
+     *
+     * @param event a {@link ameba.event.Event} object.
+     * @since 0.1.13
+     */
+    @SuppressWarnings("unchecked")
+    public static void publishAsync(Event event) {
+        EventBus eventBus = getEventBus();
+        if (eventBus instanceof EventBus.Mixed) {
+            ((EventBus.Mixed) eventBus).publishAsync(event);
+        }
+    }
 }
@@ -0,0 +1,14 @@
+package ameba.event;
+
+/**
+ * <p>Listener which can receive events on several threads at the same time.</p>
+ * <p>
+ * Publisher such as the parallel {@link ameba.scanner.PackageScanner} dispatch events to these listeners
+ * concurrently, other listeners receive events one by one on the publishing thread.
+ * </p>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+public interface ThreadSafeListener<E extends Event> extends Listener<E> {
+}
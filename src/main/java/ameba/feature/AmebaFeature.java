@@ -57,6 +57,17 @@ public abstract class AmebaFeature extends LoggerOwner implements Feature {
         getEventBus().publish(event);
     }
 
+    /**
+     * <p>hasEventSubscribers.</p>
+     *
+     * @param eventClass a {@link java.lang.Class} object.
+     * @return true if any listener would receive the event class
+     * @since 0.1.13
+     */
+    public static boolean hasEventSubscribers(Class<? extends Event> eventClass) {
+        return getEventBus().hasSubscribers(eventClass);
+    }
+
     private <E extends Event> void subscribe(Class<E> eventClass, final Listener<E> listener) {
         getEventBus().subscribe(eventClass, listener);
     }
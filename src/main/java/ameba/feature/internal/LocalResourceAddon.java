@@ -2,6 +2,7 @@ package ameba.feature.internal;
 
 import ameba.core.Addon;
 import ameba.core.Application;
+import ameba.core.Provides;
 import ameba.scanner.ClassFoundEvent;
 import ameba.scanner.ClassInfo;
 import com.google.common.collect.Sets;
@@ -21,6 +22,7 @@ import java.util.Set;
  * @since 0.1.6e
  *
  */
+@Provides("localResource")
 public class LocalResourceAddon extends Addon {
     /**
      * {@inheritDoc}
@@ -1,5 +1,6 @@
 package ameba.inject.generator;
 
+import ameba.core.StartupProfiler;
 import org.glassfish.hk2.api.DynamicConfigurationService;
 import org.glassfish.hk2.api.MultiException;
 import org.glassfish.hk2.api.Populator;
@@ -24,7 +25,7 @@ public class ServiceLocatorGenerator extends ServiceLocatorGeneratorImpl {
         DynamicConfigurationService dcs = retVal.getService(DynamicConfigurationService.class);
         Populator populator = dcs.getPopulator();
 
-        try {
+        try (StartupProfiler.Phase ignored = StartupProfiler.phase("hk2.populate:" + name)) {
             populator.populate();
         } catch (IOException e) {
             throw new MultiException(e);
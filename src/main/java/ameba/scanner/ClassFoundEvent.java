@@ -63,6 +63,16 @@ public class ClassFoundEvent implements Event {
         }
     }
 
+    /**
+     * <p>Getter for the field <code>classInfo</code>.</p>
+     *
+     * @return a {@link ameba.scanner.ClassInfo} object.
+     * @since 0.1.13
+     */
+    public ClassInfo getClassInfo() {
+        return classInfo;
+    }
+
     /**
      * <p>isCacheMode.</p>
      *
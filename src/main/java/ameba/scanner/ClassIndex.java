@@ -0,0 +1,181 @@
+package ameba.scanner;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.commons.io.IOUtils.closeQuietly;
+
+/**
+ * <p>Build time class index.</p>
+ * <p>
+ * {@link ameba.scanner.ClassIndexProcessor} write the {@link ameba.scanner.ClassMetadata} of all compiled
+ * classes to <code>META-INF/ameba/classes.idx</code>, the scanner read classes of an indexed root
+ * from the index and never open the class files.
+ * </p>
+ * One class per line:
+ * <pre>
+ * className access superClass|- interface,interface|- annotation,annotation|-
+ * </pre>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+public final class ClassIndex {
+    /**
+     * Constant <code>RESOURCE_NAME="META-INF/ameba/classes.idx"</code>
+     */
+    public static final String RESOURCE_NAME = "META-INF/ameba/classes.idx";
+    private static final Logger logger = LoggerFactory.getLogger(ClassIndex.class);
+    private static final String NONE = "-";
+
+    private static volatile ClassIndex index;
+
+    private final Map<String, List<ClassMetadata>> roots;
+    private final Map<String, ClassMetadata> classes;
+
+    private ClassIndex(Map<String, List<ClassMetadata>> roots) {
+        this.roots = roots;
+        this.classes = Maps.newHashMap();
+        for (List<ClassMetadata> list : roots.values()) {
+            for (ClassMetadata metadata : list) {
+                classes.putIfAbsent(metadata.getClassName(), metadata);
+            }
+        }
+    }
+
+    private static ClassIndex getIndex() {
+        if (index == null) {
+            synchronized (ClassIndex.class) {
+                if (index == null) {
+                    index = load();
+                }
+            }
+        }
+        return index;
+    }
+
+    private static ClassIndex load() {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader == null) {
+            loader = ClassIndex.class.getClassLoader();
+        }
+        Map<String, List<ClassMetadata>> roots = Maps.newLinkedHashMap();
+        try {
+            Enumeration<URL> resources = loader.getResources(RESOURCE_NAME);
+            while (resources.hasMoreElements()) {
+                URL url = resources.nextElement();
+                String spec = url.toExternalForm();
+                InputStream in = null;
+                try {
+                    in = url.openStream();
+                    roots.put(spec.substring(0, spec.length() - RESOURCE_NAME.length()), read(in));
+                } catch (IOException e) {
+                    logger.warn("read class index " + spec + " has error", e);
+                } finally {
+                    closeQuietly(in);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("find class index has error", e);
+        }
+        return new ClassIndex(roots);
+    }
+
+    /**
+     * indexed metadata of the class
+     *
+     * @param className class name
+     * @return class metadata, null if not indexed
+     */
+    public static ClassMetadata get(String className) {
+        return getIndex().classes.get(className);
+    }
+
+    /**
+     * indexed classes of the class path root
+     *
+     * @param root root url, such as <code>file:/app/classes/</code> or <code>jar:file:/app/lib/app.jar!/</code>
+     * @return classes, null if the root has not index
+     */
+    public static List<ClassMetadata> getRoot(String root) {
+        return getIndex().roots.get(root);
+    }
+
+    /**
+     * release loaded index, call after scanning
+     */
+    public static void clear() {
+        index = null;
+    }
+
+    /**
+     * <p>read index.</p>
+     *
+     * @param in index stream
+     * @return classes
+     * @throws IOException read error
+     */
+    public static List<ClassMetadata> read(InputStream in) throws IOException {
+        List<ClassMetadata> classes = Lists.newArrayList();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, Charsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split(" ");
+            if (parts.length != 5) {
+                throw new IOException("illegal class index line : " + line);
+            }
+            String superClass = NONE.equals(parts[2]) ? null : parts[2];
+            String[] interfaces = NONE.equals(parts[3]) ? new String[0] : parts[3].split(",");
+            Set<String> annotations = NONE.equals(parts[4]) ? Collections.emptySet()
+                    : Collections.unmodifiableSet(new LinkedHashSet<>(Lists.newArrayList(parts[4].split(","))));
+            try {
+                classes.add(new ClassMetadata(parts[0], Integer.parseInt(parts[1]),
+                        superClass, interfaces, annotations));
+            } catch (NumberFormatException e) {
+                throw new IOException("illegal class index line : " + line, e);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * <p>write index.</p>
+     *
+     * @param classes classes
+     * @param writer  index writer
+     * @throws IOException write error
+     */
+    public static void write(Iterable<ClassMetadata> classes, Writer writer) throws IOException {
+        for (ClassMetadata metadata : classes) {
+            writer.write(metadata.getClassName());
+            writer.write(' ');
+            writer.write(String.valueOf(metadata.getModifiers()));
+            writer.write(' ');
+            writer.write(StringUtils.defaultIfEmpty(metadata.getSuperClassName(), NONE));
+            writer.write(' ');
+            writer.write(StringUtils.defaultIfEmpty(StringUtils.join(metadata.getInterfaceNames(), ','), NONE));
+            writer.write(' ');
+            writer.write(StringUtils.defaultIfEmpty(StringUtils.join(metadata.getAnnotationNames(), ','), NONE));
+            writer.write('\n');
+        }
+    }
+}
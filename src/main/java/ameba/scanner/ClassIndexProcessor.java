@@ -0,0 +1,192 @@
+package ameba.scanner;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Annotation processor which write the {@link ameba.scanner.ClassIndex} of compiled classes.</p>
+ * <p>
+ * Registered as service, so it run for all modules compiled with ameba on the class path.
+ * Incremental compile merge with the exists index, the classes which class file is deleted are dropped.
+ * </p>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+@SupportedAnnotationTypes("*")
+public class ClassIndexProcessor extends AbstractProcessor {
+    // access flags of class file, see java.lang.reflect.Modifier
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final int ACC_ANNOTATION = 0x2000;
+    private static final int ACC_ENUM = 0x4000;
+
+    private final Map<String, ClassMetadata> classes = Maps.newTreeMap();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!classes.isEmpty()) {
+                writeIndex();
+            }
+        } else {
+            for (Element element : roundEnv.getRootElements()) {
+                if (element instanceof TypeElement) {
+                    addType((TypeElement) element);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void addType(TypeElement type) {
+        ClassMetadata metadata = toMetadata(type);
+        classes.put(metadata.getClassName(), metadata);
+        for (Element element : type.getEnclosedElements()) {
+            if (element instanceof TypeElement) {
+                addType((TypeElement) element);
+            }
+        }
+    }
+
+    private ClassMetadata toMetadata(TypeElement type) {
+        Elements elements = processingEnv.getElementUtils();
+        Set<Modifier> modifiers = type.getModifiers();
+        int access = 0;
+        // protected member class is public in class file
+        if (modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.PROTECTED)) {
+            access |= ACC_PUBLIC;
+        }
+        if (modifiers.contains(Modifier.FINAL)) {
+            access |= ACC_FINAL;
+        }
+        if (modifiers.contains(Modifier.ABSTRACT)) {
+            access |= ACC_ABSTRACT;
+        }
+        ElementKind kind = type.getKind();
+        if (kind == ElementKind.INTERFACE || kind == ElementKind.ANNOTATION_TYPE) {
+            access |= ACC_INTERFACE | ACC_ABSTRACT;
+        }
+        if (kind == ElementKind.ANNOTATION_TYPE) {
+            access |= ACC_ANNOTATION;
+        }
+        if (kind == ElementKind.ENUM) {
+            access |= ACC_ENUM;
+        }
+
+        String superClassName = null;
+        TypeMirror superClass = type.getSuperclass();
+        if (superClass.getKind() == TypeKind.DECLARED) {
+            superClassName = binaryName(superClass);
+            if (Object.class.getName().equals(superClassName)) {
+                superClassName = null;
+            }
+        }
+
+        String[] interfaces = type.getInterfaces().stream()
+                .filter(t -> t.getKind() == TypeKind.DECLARED)
+                .map(this::binaryName)
+                .toArray(String[]::new);
+
+        Set<String> annotations = new LinkedHashSet<>();
+        // only declared annotations, inherited annotations of super class are not in the class file
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            Retention retention = annotationType.getAnnotation(Retention.class);
+            if (retention != null && retention.value() == RetentionPolicy.SOURCE) continue;
+            annotations.add(elements.getBinaryName(annotationType).toString());
+        }
+
+        return new ClassMetadata(elements.getBinaryName(type).toString(), access,
+                superClassName, interfaces, annotations);
+    }
+
+    private String binaryName(TypeMirror type) {
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        return processingEnv.getElementUtils().getBinaryName(element).toString();
+    }
+
+    private static boolean isClassFileExists(Filer filer, String className) {
+        int dot = className.lastIndexOf('.');
+        String pkg = dot == -1 ? "" : className.substring(0, dot);
+        try {
+            FileObject file = filer.getResource(StandardLocation.CLASS_OUTPUT, pkg,
+                    className.substring(dot + 1) + ".class");
+            file.openInputStream().close();
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void writeIndex() {
+        Filer filer = processingEnv.getFiler();
+        // incremental compile, keep classes which are not compiled this time and not deleted
+        try {
+            FileObject exists = filer.getResource(StandardLocation.CLASS_OUTPUT, "", ClassIndex.RESOURCE_NAME);
+            InputStream in = exists.openInputStream();
+            try {
+                for (ClassMetadata metadata : ClassIndex.read(in)) {
+                    String className = metadata.getClassName();
+                    if (!classes.containsKey(className) && isClassFileExists(filer, className)) {
+                        classes.put(className, metadata);
+                    }
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // not exists
+        }
+
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", ClassIndex.RESOURCE_NAME);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), Charsets.UTF_8)) {
+                ClassIndex.write(classes.values(), writer);
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "write " + ClassIndex.RESOURCE_NAME + " error: " + e.getMessage());
+        }
+    }
+}
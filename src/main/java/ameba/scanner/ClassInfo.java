@@ -3,6 +3,7 @@ package ameba.scanner;
 import javassist.ClassPool;
 import javassist.CtClass;
 import javassist.NotFoundException;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.glassfish.jersey.internal.OsgiRegistry;
 import org.glassfish.jersey.internal.util.ReflectionHelper;
@@ -10,6 +11,7 @@ import org.glassfish.jersey.server.internal.LocalizationMessages;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.annotation.Annotation;
@@ -18,6 +20,10 @@ import java.security.PrivilegedActionException;
 
 /**
  * <p>Abstract ClassInfo class.</p>
+ * <p>
+ * Class name, modifiers, annotations and super types are answered from {@link ameba.scanner.ClassMetadata},
+ * the javassist {@link javassist.CtClass} is made only if {@link #getCtClass()} is called.
+ * </p>
  *
  * @author icode
  *
@@ -26,6 +32,8 @@ public abstract class ClassInfo {
     private static final Logger logger = LoggerFactory.getLogger(ClassInfo.class);
 
     private CtClass ctClass;
+    private ClassMetadata metadata;
+    private byte[] bytes;
     private String fileName;
     private Object[] annotations;
 
@@ -38,6 +46,18 @@ public abstract class ClassInfo {
         this.fileName = fileName;
     }
 
+    /**
+     * <p>Constructor for ClassInfo with known metadata, the class file is read only if needed.</p>
+     *
+     * @param fileName a {@link java.lang.String} object.
+     * @param metadata a {@link ameba.scanner.ClassMetadata} object.
+     * @since 0.1.13
+     */
+    public ClassInfo(String fileName, ClassMetadata metadata) {
+        this.fileName = fileName;
+        this.metadata = metadata;
+    }
+
     /**
      * <p>Getter for the field <code>fileName</code>.</p>
      *
@@ -55,21 +75,53 @@ public abstract class ClassInfo {
     public CtClass getCtClass() {
         if (ctClass == null && fileName.endsWith(".class")) {
             try {
-                ctClass = ClassPool.getDefault().makeClass(getFileStream());
+                ctClass = ClassPool.getDefault().makeClass(new ByteArrayInputStream(getBytes()));
             } catch (IOException e) {
                 logger.error("make class error", e);
+            } finally {
+                // the class file is in the ctClass now
+                bytes = null;
             }
         }
         return ctClass;
     }
 
+    /**
+     * <p>Getter for the field <code>metadata</code>.</p>
+     *
+     * @return a {@link ameba.scanner.ClassMetadata} object.
+     */
+    public ClassMetadata getMetadata() {
+        if (metadata == null && fileName.endsWith(".class")) {
+            try {
+                metadata = ClassMetadata.read(getBytes());
+                ClassMetadata.cache(metadata);
+            } catch (IOException e) {
+                logger.error("read class metadata error", e);
+            }
+        }
+        return metadata;
+    }
+
+    // the stream may be read once, keep the class file for getCtClass after getMetadata
+    private byte[] getBytes() throws IOException {
+        if (bytes == null) {
+            InputStream in = getFileStream();
+            if (in == null) {
+                throw new IOException("class file not found : " + fileName);
+            }
+            bytes = IOUtils.toByteArray(in);
+        }
+        return bytes;
+    }
+
     /**
      * <p>getClassName.</p>
      *
      * @return a {@link java.lang.String} object.
      */
     public String getClassName() {
-        return getCtClass().getName();
+        return getMetadata().getClassName();
     }
 
     /**
@@ -94,18 +146,46 @@ public abstract class ClassInfo {
      * @param annotationClass a {@link java.lang.Class} object.
      * @return a boolean.
      */
-    @SuppressWarnings("unchecked")
     @SafeVarargs
     public final boolean containsAnnotations(Class<? extends Annotation>... annotationClass) {
         if (ArrayUtils.isEmpty(annotationClass)) {
             return false;
         }
 
-        for (Object anno : getAnnotations()) {
-            for (Class cls : annotationClass) {
-                if (((Annotation) anno).annotationType().equals(cls)) {
-                    return true;
-                }
+        ClassMetadata meta = getMetadata();
+        if (meta == null) {
+            return false;
+        }
+        for (Class<? extends Annotation> cls : annotationClass) {
+            if (meta.hasAnnotation(cls)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * check the class, it's super classes and interfaces with lightweight metadata,
+     * super types are read from class path without loading
+     *
+     * @param acceptable a {@link ameba.scanner.Acceptable} object.
+     * @return a boolean.
+     */
+    public boolean accept(Acceptable<ClassMetadata> acceptable) {
+        ClassMetadata superClass = getMetadata();
+        while (superClass != null) {
+            if (acceptable.accept(superClass) || checkInterface(superClass, acceptable)) {
+                return true;
+            }
+            superClass = superClass.getSuperClass();
+        }
+        return false;
+    }
+
+    private boolean checkInterface(ClassMetadata metadata, Acceptable<ClassMetadata> accept) {
+        for (ClassMetadata inf : metadata.getInterfaces()) {
+            if (accept.accept(inf) || checkInterface(inf, accept)) {
+                return true;
             }
         }
         return false;
@@ -116,7 +196,9 @@ public abstract class ClassInfo {
      *
      * @param acceptable a {@link ameba.scanner.Acceptable} object.
      * @return a boolean.
+     * @deprecated make javassist class for all super types, use {@link #accept(Acceptable)}
      */
+    @Deprecated
     public boolean accpet(Acceptable<CtClass> acceptable) {
         boolean accept = checkSuperClass(getCtClass(), acceptable);
         if (!accept)
@@ -158,7 +240,7 @@ public abstract class ClassInfo {
      * @return a boolean.
      */
     public boolean isPublic() {
-        return javassist.Modifier.isPublic(getCtClass().getModifiers());
+        return getMetadata().isPublic();
     }
 
     /**
@@ -167,7 +249,7 @@ public abstract class ClassInfo {
      * @return a {@link java.lang.Class} object.
      */
     public Class toClass() {
-        return getClassForName(getCtClass().getName());
+        return getClassForName(getClassName());
     }
 
     /**
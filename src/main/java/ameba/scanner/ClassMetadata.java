@@ -0,0 +1,433 @@
+package ameba.scanner;
+
+import com.google.common.collect.Maps;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Lightweight class metadata.</p>
+ * <p>
+ * Read only the constant pool, class header, super types and annotation descriptors of a class file,
+ * fields and methods are skipped and no class is made or loaded.
+ * </p>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+public class ClassMetadata {
+    private static final Logger logger = LoggerFactory.getLogger(ClassMetadata.class);
+    private static final int ACC_ANNOTATION = 0x2000;
+    private static final int ACC_ENUM = 0x4000;
+    private static final String[] EMPTY = new String[0];
+    private static final ClassMetadata NOT_FOUND = new ClassMetadata(null, 0, null, EMPTY, Collections.emptySet());
+    private static final Map<String, ClassMetadata> CACHE = Maps.newConcurrentMap();
+
+    private final String className;
+    private final int access;
+    private final String superClassName;
+    private final String[] interfaceNames;
+    private final Set<String> annotationNames;
+
+    /**
+     * <p>Constructor for ClassMetadata.</p>
+     *
+     * @param className       class name
+     * @param access          class access flags
+     * @param superClassName  super class name, null if java.lang.Object or interface has not super class
+     * @param interfaceNames  interface names
+     * @param annotationNames annotation class names
+     */
+    public ClassMetadata(String className, int access, String superClassName,
+                         String[] interfaceNames, Set<String> annotationNames) {
+        this.className = className;
+        this.access = access;
+        this.superClassName = superClassName;
+        this.interfaceNames = interfaceNames;
+        this.annotationNames = annotationNames;
+    }
+
+    /**
+     * read class metadata from class file stream, the stream is not closed
+     *
+     * @param in class file stream
+     * @return class metadata
+     * @throws IOException not a class file
+     */
+    public static ClassMetadata read(InputStream in) throws IOException {
+        return read(IOUtils.toByteArray(in));
+    }
+
+    /**
+     * read class metadata from class file bytes
+     *
+     * @param bytes class file
+     * @return class metadata
+     * @throws IOException not a class file
+     */
+    public static ClassMetadata read(byte[] bytes) throws IOException {
+        try {
+            return new Reader(bytes).read();
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("truncated class file", e);
+        }
+    }
+
+    /**
+     * find class metadata of the class name from {@link ameba.scanner.ClassIndex} or class path,
+     * cached until {@link #clearCache()}
+     *
+     * @param className class name
+     * @return class metadata, null if not found
+     */
+    public static ClassMetadata forName(String className) {
+        ClassMetadata metadata = CACHE.get(className);
+        if (metadata == null) {
+            metadata = load(className);
+            CACHE.putIfAbsent(className, metadata);
+        }
+        return metadata == NOT_FOUND ? null : metadata;
+    }
+
+    private static ClassMetadata load(String className) {
+        ClassMetadata indexed = ClassIndex.get(className);
+        if (indexed != null) {
+            return indexed;
+        }
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader == null) {
+            loader = ClassMetadata.class.getClassLoader();
+        }
+        InputStream in = loader.getResourceAsStream(className.replace('.', '/').concat(".class"));
+        if (in == null) {
+            return NOT_FOUND;
+        }
+        try {
+            return read(in);
+        } catch (IOException e) {
+            logger.debug("read class metadata error", e);
+            return NOT_FOUND;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * cache the metadata of scanned class, so it's super types can resolve it without read again
+     *
+     * @param metadata class metadata
+     */
+    static void cache(ClassMetadata metadata) {
+        CACHE.putIfAbsent(metadata.getClassName(), metadata);
+    }
+
+    /**
+     * clear the metadata cache of super types and loaded class index, call after scanning
+     */
+    public static void clearCache() {
+        CACHE.clear();
+        ClassIndex.clear();
+    }
+
+    /**
+     * <p>Getter for the field <code>className</code>.</p>
+     *
+     * @return a {@link java.lang.String} object.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * <p>getModifiers.</p>
+     *
+     * @return class access flags, see {@link java.lang.reflect.Modifier}
+     */
+    public int getModifiers() {
+        return access;
+    }
+
+    /**
+     * <p>Getter for the field <code>superClassName</code>.</p>
+     *
+     * @return a {@link java.lang.String} object.
+     */
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+    /**
+     * <p>Getter for the field <code>interfaceNames</code>.</p>
+     *
+     * @return an array of {@link java.lang.String} objects.
+     */
+    public String[] getInterfaceNames() {
+        return interfaceNames.clone();
+    }
+
+    /**
+     * <p>Getter for the field <code>annotationNames</code>.</p>
+     *
+     * @return a {@link java.util.Set} object.
+     */
+    public Set<String> getAnnotationNames() {
+        return annotationNames;
+    }
+
+    /**
+     * <p>hasAnnotation.</p>
+     *
+     * @param annotationClass a {@link java.lang.Class} object.
+     * @return a boolean.
+     */
+    public boolean hasAnnotation(Class<? extends Annotation> annotationClass) {
+        return annotationNames.contains(annotationClass.getName());
+    }
+
+    /**
+     * <p>super class metadata.</p>
+     *
+     * @return a {@link ameba.scanner.ClassMetadata} object, null if not has super class or not found.
+     */
+    public ClassMetadata getSuperClass() {
+        return superClassName == null ? null : forName(superClassName);
+    }
+
+    /**
+     * <p>interface metadata, interfaces not found is ignored.</p>
+     *
+     * @return an array of {@link ameba.scanner.ClassMetadata} objects.
+     */
+    public ClassMetadata[] getInterfaces() {
+        return Arrays.stream(interfaceNames)
+                .map(ClassMetadata::forName)
+                .filter(m -> m != null)
+                .toArray(ClassMetadata[]::new);
+    }
+
+    public boolean isPublic() {
+        return Modifier.isPublic(access);
+    }
+
+    public boolean isAbstract() {
+        return Modifier.isAbstract(access);
+    }
+
+    public boolean isInterface() {
+        return Modifier.isInterface(access);
+    }
+
+    public boolean isAnnotation() {
+        return (access & ACC_ANNOTATION) != 0;
+    }
+
+    public boolean isEnum() {
+        return (access & ACC_ENUM) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return className;
+    }
+
+    /**
+     * class file reader, utf8 constants are decoded only when they are used
+     */
+    private static class Reader {
+        private final byte[] b;
+        private final int[] offsets;
+        private final String[] strings;
+        private int pos;
+
+        Reader(byte[] bytes) throws IOException {
+            this.b = bytes;
+            if (readInt(0) != 0xCAFEBABE) {
+                throw new IOException("not a class file");
+            }
+            int count = readUnsignedShort(8);
+            offsets = new int[count];
+            strings = new String[count];
+            pos = 10;
+            for (int i = 1; i < count; i++) {
+                offsets[i] = pos + 1;
+                int tag = b[pos] & 0xFF;
+                switch (tag) {
+                    case 1: // Utf8
+                        pos += 3 + readUnsignedShort(pos + 1);
+                        break;
+                    case 3: // Integer
+                    case 4: // Float
+                    case 9: // Fieldref
+                    case 10: // Methodref
+                    case 11: // InterfaceMethodref
+                    case 12: // NameAndType
+                    case 17: // Dynamic
+                    case 18: // InvokeDynamic
+                        pos += 5;
+                        break;
+                    case 5: // Long
+                    case 6: // Double
+                        pos += 9;
+                        i++;
+                        break;
+                    case 15: // MethodHandle
+                        pos += 4;
+                        break;
+                    case 7: // Class
+                    case 8: // String
+                    case 16: // MethodType
+                    case 19: // Module
+                    case 20: // Package
+                        pos += 3;
+                        break;
+                    default:
+                        throw new IOException("unknown constant pool tag " + tag);
+                }
+            }
+        }
+
+        ClassMetadata read() {
+            int access = readUnsignedShort(pos);
+            String className = readClassName(readUnsignedShort(pos + 2));
+            int superIndex = readUnsignedShort(pos + 4);
+            String superClassName = superIndex == 0 ? null : readClassName(superIndex);
+            int interfaceCount = readUnsignedShort(pos + 6);
+            pos += 8;
+            String[] interfaces = interfaceCount == 0 ? EMPTY : new String[interfaceCount];
+            for (int i = 0; i < interfaceCount; i++) {
+                interfaces[i] = readClassName(readUnsignedShort(pos));
+                pos += 2;
+            }
+            skipMembers();
+            skipMembers();
+
+            Set<String> annotations = null;
+            int attributeCount = readUnsignedShort(pos);
+            pos += 2;
+            for (int i = 0; i < attributeCount; i++) {
+                String name = readUtf8(readUnsignedShort(pos));
+                int length = readInt(pos + 2);
+                pos += 6;
+                int end = pos + length;
+                if ("RuntimeVisibleAnnotations".equals(name) || "RuntimeInvisibleAnnotations".equals(name)) {
+                    int count = readUnsignedShort(pos);
+                    pos += 2;
+                    for (int j = 0; j < count; j++) {
+                        if (annotations == null) {
+                            annotations = new LinkedHashSet<>();
+                        }
+                        annotations.add(descriptorToName(readUtf8(readUnsignedShort(pos))));
+                        skipAnnotation();
+                    }
+                }
+                pos = end;
+            }
+            if (superClassName != null && superClassName.equals(Object.class.getName())) {
+                superClassName = null;
+            }
+            return new ClassMetadata(className, access, superClassName, interfaces,
+                    annotations == null ? Collections.emptySet() : Collections.unmodifiableSet(annotations));
+        }
+
+        private void skipMembers() {
+            int count = readUnsignedShort(pos);
+            pos += 2;
+            for (int i = 0; i < count; i++) {
+                int attributeCount = readUnsignedShort(pos + 6);
+                pos += 8;
+                for (int j = 0; j < attributeCount; j++) {
+                    pos += 6 + readInt(pos + 2);
+                }
+            }
+        }
+
+        // pos at type index of annotation
+        private void skipAnnotation() {
+            int pairs = readUnsignedShort(pos + 2);
+            pos += 4;
+            for (int i = 0; i < pairs; i++) {
+                pos += 2;
+                skipElementValue();
+            }
+        }
+
+        private void skipElementValue() {
+            int tag = b[pos++] & 0xFF;
+            switch (tag) {
+                case 'e':
+                    pos += 4;
+                    break;
+                case '@':
+                    skipAnnotation();
+                    break;
+                case '[':
+                    int count = readUnsignedShort(pos);
+                    pos += 2;
+                    for (int i = 0; i < count; i++) {
+                        skipElementValue();
+                    }
+                    break;
+                default:
+                    pos += 2;
+            }
+        }
+
+        private String readClassName(int index) {
+            return readUtf8(readUnsignedShort(offsets[index])).replace('/', '.');
+        }
+
+        private String descriptorToName(String descriptor) {
+            if (descriptor.startsWith("L") && descriptor.endsWith(";")) {
+                descriptor = descriptor.substring(1, descriptor.length() - 1);
+            }
+            return descriptor.replace('/', '.');
+        }
+
+        private String readUtf8(int index) {
+            String value = strings[index];
+            if (value == null) {
+                int offset = offsets[index];
+                value = decodeUtf8(offset + 2, readUnsignedShort(offset));
+                strings[index] = value;
+            }
+            return value;
+        }
+
+        // modified utf8 of class file
+        private String decodeUtf8(int offset, int length) {
+            char[] chars = new char[length];
+            int end = offset + length;
+            int size = 0;
+            while (offset < end) {
+                int c = b[offset++];
+                if ((c & 0x80) == 0) {
+                    chars[size++] = (char) (c & 0x7F);
+                } else if ((c & 0xE0) == 0xC0) {
+                    chars[size++] = (char) (((c & 0x1F) << 6) + (b[offset++] & 0x3F));
+                } else {
+                    chars[size++] = (char) (((c & 0xF) << 12) + ((b[offset++] & 0x3F) << 6) + (b[offset++] & 0x3F));
+                }
+            }
+            return new String(chars, 0, size);
+        }
+
+        private int readUnsignedShort(int offset) {
+            return ((b[offset] & 0xFF) << 8) | (b[offset + 1] & 0xFF);
+        }
+
+        private int readInt(int offset) {
+            return ((b[offset] & 0xFF) << 24) | ((b[offset + 1] & 0xFF) << 16)
+                    | ((b[offset + 2] & 0xFF) << 8) | (b[offset + 3] & 0xFF);
+        }
+    }
+}
@@ -1,25 +1,59 @@
 package ameba.scanner;
 
 import ameba.event.SystemEventBus;
+import ameba.event.ThreadSafeListener;
+import ameba.exception.AmebaException;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import org.glassfish.jersey.server.ResourceFinder;
+import org.glassfish.jersey.server.internal.scanning.FilesScanner;
+import org.glassfish.jersey.server.internal.scanning.JarFileScanner;
 import org.glassfish.jersey.server.internal.scanning.PackageNamesScanner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.commons.io.IOUtils.closeQuietly;
 
 /**
  * <p>PackageScanner class.</p>
+ * <p>
+ * The parallel mode split the packages by jar and directory root, read class metadata of roots
+ * on a fork join pool, then publish {@link ameba.scanner.ClassFoundEvent} concurrently to
+ * {@link ameba.event.ThreadSafeListener}s, then one by one to async listeners and other listeners,
+ * in the order of roots and class names, so the accept classes are same as every scan.
+ * Roots which have a {@link ameba.scanner.ClassIndex} are read from the index without open class files,
+ * roots which are not changed since last scan publish the cached accept classes only, see
+ * {@link ameba.scanner.ScanCache}.
+ * </p>
  *
  * @author icode
  *
  */
 public class PackageScanner {
+    private static final Logger logger = LoggerFactory.getLogger(PackageScanner.class);
+    private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
     private Set<String> scanPkgs;
+    private boolean parallel;
+    private ScanCache cache;
     private List<String> acceptClasses = Lists.newArrayList();
     private Set<String> foundClasses = Sets.newHashSet();
 
@@ -29,13 +63,39 @@ public class PackageScanner {
      * @param scanPkgs a {@link java.util.Set} object.
      */
     public PackageScanner(Set<String> scanPkgs) {
+        this(scanPkgs, false);
+    }
+
+    /**
+     * <p>Constructor for PackageScanner.</p>
+     *
+     * @param scanPkgs a {@link java.util.Set} object.
+     * @param parallel scan roots in parallel
+     * @since 0.1.13
+     */
+    public PackageScanner(Set<String> scanPkgs, boolean parallel) {
         this.scanPkgs = scanPkgs;
+        this.parallel = parallel;
+    }
+
+    /**
+     * <p>Setter for the field <code>cache</code>.</p>
+     *
+     * @param cache scan cache, unchanged roots are not scanned
+     * @since 0.1.13
+     */
+    public void setCache(ScanCache cache) {
+        this.cache = cache;
     }
 
     /**
      * <p>scan.</p>
      */
     public void scan() {
+        if (parallel || cache != null) {
+            scanRoots();
+            return;
+        }
         final PackageNamesScanner scanner = new PackageNamesScanner(
                 scanPkgs.toArray(new String[scanPkgs.size()]), true);
         while (scanner.hasNext()) {
@@ -58,7 +118,12 @@ public class PackageScanner {
                     closeQuietly(in);
                 }
             };
-            String className = info.getCtClass().getName();
+            ClassMetadata metadata = info.getMetadata();
+            if (metadata == null) {
+                info.closeFileStream();
+                continue;
+            }
+            String className = metadata.getClassName();
             if (!foundClasses.contains(className)) {
                 ClassFoundEvent event = new ClassFoundEvent(info);
                 SystemEventBus.publish(event);
@@ -67,17 +132,267 @@ public class PackageScanner {
                 if (event.accept) {
                     acceptClasses.add(className);
                 }
+            } else {
+                info.closeFileStream();
             }
             foundClasses.add(className);
         }
     }
 
+    private void scanRoots() {
+        ClassLoader loader = getClassLoader();
+        List<Root> roots = getRoots(loader);
+        int parallelism = parallel ? Runtime.getRuntime().availableProcessors() : 1;
+        ForkJoinPool pool = new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("ameba-scanner-" + POOL_COUNTER.incrementAndGet());
+            thread.setContextClassLoader(loader);
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        try {
+            List<Future<List<ClassInfo>>> futures = Lists.newArrayListWithCapacity(roots.size());
+            for (Root root : roots) {
+                Callable<List<ClassInfo>> task = root::read;
+                futures.add(pool.submit(task));
+            }
+            // merge in order of roots, the first found class win like the serial scan
+            Map<String, ClassFoundEvent> events = Maps.newLinkedHashMap();
+            Map<String, Root> owners = Maps.newHashMap();
+            int cached = 0;
+            for (int i = 0; i < roots.size(); i++) {
+                Root root = roots.get(i);
+                for (ClassInfo info : futures.get(i).get()) {
+                    String className = info.getClassName();
+                    if (!foundClasses.contains(className) && !events.containsKey(className)) {
+                        events.put(className, new ClassFoundEvent(info, root.cached));
+                        owners.put(className, root);
+                    }
+                }
+                if (root.cached) cached++;
+            }
+            foundClasses.addAll(events.keySet());
+            if (cache != null) {
+                logger.debug("scan {} roots, {} roots are not changed", roots.size(), cached);
+            }
+
+            pool.submit(() -> events.values().parallelStream().forEach(event ->
+                    SystemEventBus.publish(event, ThreadSafeListener.class::isInstance))).get();
+            for (ClassFoundEvent event : events.values()) {
+                SystemEventBus.publishAsync(event);
+                SystemEventBus.publish(event, listener -> !(listener instanceof ThreadSafeListener));
+                ClassInfo info = event.getClassInfo();
+                info.closeFileStream();
+                if (event.accept) {
+                    acceptClasses.add(info.getClassName());
+                    owners.get(info.getClassName()).accepted.add(info.getClassName());
+                }
+            }
+
+            if (cache != null) {
+                for (Root root : roots) {
+                    if (root.fingerprint != null) {
+                        cache.put(root.spec, root.fingerprint, root.accepted);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmebaException("scan classes interrupted", e);
+        } catch (ExecutionException e) {
+            throw new AmebaException("scan classes has error", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private ClassLoader getClassLoader() {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return loader == null ? PackageScanner.class.getClassLoader() : loader;
+    }
+
+    private List<Root> getRoots(ClassLoader loader) {
+        Set<String> urls = Sets.newHashSet();
+        List<Root> roots = Lists.newArrayList();
+        for (String pkg : scanPkgs) {
+            String path = pkg.replace('.', '/');
+            List<Root> pkgRoots = Lists.newArrayList();
+            try {
+                Enumeration<URL> resources = loader.getResources(path);
+                while (resources.hasMoreElements()) {
+                    URL url = resources.nextElement();
+                    String spec = url.toExternalForm();
+                    if (!urls.add(spec)) continue;
+                    List<ClassMetadata> indexed = getIndexedRoot(spec, path);
+                    if (indexed != null) {
+                        pkgRoots.add(new Root(spec, url, loader, () -> readIndexedClasses(indexed, pkg, url, loader)));
+                        continue;
+                    }
+                    Callable<ResourceFinder> finder = getFinder(url, path);
+                    if (finder == null) {
+                        // other scheme such as vfs or bundle, scan the package by jersey
+                        pkgRoots.clear();
+                        break;
+                    }
+                    pkgRoots.add(new Root(spec, url, loader, () -> readClasses(finder.call(), loader)));
+                }
+            } catch (IOException e) {
+                throw new AmebaException("find package " + pkg + " roots has error", e);
+            }
+            if (pkgRoots.isEmpty()) {
+                pkgRoots.add(new Root(pkg, null, loader,
+                        () -> readClasses(new PackageNamesScanner(new String[]{pkg}, true), loader)));
+            }
+            roots.addAll(pkgRoots);
+        }
+        return roots;
+    }
+
+    private List<ClassMetadata> getIndexedRoot(String spec, String path) {
+        if (spec.endsWith("/")) {
+            spec = spec.substring(0, spec.length() - 1);
+        }
+        if (!spec.endsWith(path)) return null;
+        return ClassIndex.getRoot(spec.substring(0, spec.length() - path.length()));
+    }
+
+    private List<ClassInfo> readIndexedClasses(List<ClassMetadata> indexed, String pkg,
+                                               URL url, ClassLoader loader) throws URISyntaxException {
+        String prefix = pkg + ".";
+        // the index of incremental compile may has deleted class, check the file of directory root
+        File dir = "file".equals(url.getProtocol()) ? new File(url.toURI()) : null;
+        List<ClassInfo> classes = Lists.newArrayList();
+        for (ClassMetadata metadata : indexed) {
+            String className = metadata.getClassName();
+            if (!className.startsWith(prefix)) continue;
+            if (dir != null && !new File(dir, toFileName(className).substring(prefix.length())).isFile()) continue;
+            classes.add(newClassInfo(className, metadata, loader));
+        }
+        classes.sort(Comparator.comparing(ClassInfo::getClassName));
+        return classes;
+    }
+
+    private List<ClassInfo> readCachedClasses(List<String> classNames, ClassLoader loader) {
+        List<ClassInfo> classes = Lists.newArrayListWithCapacity(classNames.size());
+        for (String className : classNames) {
+            ClassInfo info = newClassInfo(className, ClassIndex.get(className), loader);
+            if (info.getMetadata() != null) {
+                classes.add(info);
+            }
+        }
+        return classes;
+    }
+
+    private static String toFileName(String className) {
+        return className.replace('.', '/').concat(".class");
+    }
+
+    // read class file only if metadata is null or listener need it
+    private ClassInfo newClassInfo(String className, ClassMetadata metadata, ClassLoader loader) {
+        String fileName = toFileName(className);
+        return new ClassInfo(fileName.substring(fileName.lastIndexOf('/') + 1), metadata) {
+
+            InputStream in;
+
+            @Override
+            public InputStream getFileStream() {
+                if (in == null) {
+                    in = loader.getResourceAsStream(fileName);
+                }
+                return in;
+            }
+
+            @Override
+            public void closeFileStream() {
+                closeQuietly(in);
+            }
+        };
+    }
+
+    private Callable<ResourceFinder> getFinder(URL url, String path) {
+        String protocol = url.getProtocol();
+        if ("file".equals(protocol)) {
+            File dir;
+            try {
+                dir = new File(url.toURI());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                return null;
+            }
+            return () -> new FilesScanner(new String[]{dir.getPath()}, true);
+        } else if ("jar".equals(protocol)) {
+            String spec = url.getPath();
+            int index = spec.indexOf("!/");
+            // nested jar can't open by url
+            if (index == -1 || spec.indexOf("!/", index + 2) != -1) return null;
+            String jar = spec.substring(0, index);
+            return () -> new JarFileScanner(new URL(jar).openStream(), path, true);
+        }
+        return null;
+    }
+
+    // the class file is not kept, listeners read it again by the class loader if they need
+    private List<ClassInfo> readClasses(ResourceFinder finder, ClassLoader loader) throws IOException {
+        List<ClassInfo> classes = Lists.newArrayList();
+        try {
+            while (finder.hasNext()) {
+                String fileName = finder.next();
+                if (!fileName.endsWith(".class")) continue;
+                InputStream in = finder.open();
+                ClassMetadata metadata;
+                try {
+                    metadata = ClassMetadata.read(in);
+                } catch (IOException e) {
+                    logger.warn("read class {} metadata failed, skip it", fileName);
+                    continue;
+                } finally {
+                    closeQuietly(in);
+                }
+                ClassMetadata.cache(metadata);
+                classes.add(newClassInfo(metadata.getClassName(), metadata, loader));
+            }
+        } finally {
+            finder.close();
+        }
+        classes.sort(Comparator.comparing(ClassInfo::getClassName));
+        return classes;
+    }
+
+    private class Root {
+        final String spec;
+        final URL url;
+        final ClassLoader loader;
+        final Callable<List<ClassInfo>> reader;
+        final List<String> accepted = Lists.newArrayList();
+        String fingerprint;
+        boolean cached;
+
+        Root(String spec, URL url, ClassLoader loader, Callable<List<ClassInfo>> reader) {
+            this.spec = spec;
+            this.url = url;
+            this.loader = loader;
+            this.reader = reader;
+        }
+
+        List<ClassInfo> read() throws Exception {
+            if (cache != null && url != null) {
+                fingerprint = ScanCache.fingerprint(url);
+                List<String> classNames = cache.get(spec, fingerprint);
+                if (classNames != null) {
+                    cached = true;
+                    return readCachedClasses(classNames, loader);
+                }
+            }
+            return reader.call();
+        }
+    }
+
     /**
      * <p>clear.</p>
      */
     public void clear() {
         acceptClasses.clear();
         foundClasses.clear();
+        ClassMetadata.clearCache();
     }
 
     /**
@@ -0,0 +1,200 @@
+package ameba.scanner;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * <p>Validated scan cache.</p>
+ * <p>
+ * Store the fingerprint and the accepted classes per class path root, a jar root is identified by it's
+ * size and last modified time, a directory root by the hash of path, size and last modified time of
+ * all files in it. The scanner use the accepted classes of a root if it's fingerprint is not changed,
+ * and scan the changed roots only. The whole cache is dropped if the key is changed.
+ * </p>
+ *
+ * @author icode
+ * @since 0.1.13
+ */
+public class ScanCache {
+    private static final Logger logger = LoggerFactory.getLogger(ScanCache.class);
+    private static final String HEADER = "#ameba scan cache 1";
+    private static final String KEY_PREFIX = "key ";
+    private static final String ROOT_PREFIX = "root ";
+
+    private final File file;
+    private final String key;
+    private final Map<String, Entry> entries;
+    private final Map<String, Entry> updated = Maps.newConcurrentMap();
+
+    private ScanCache(File file, String key, Map<String, Entry> entries) {
+        this.file = file;
+        this.key = key;
+        this.entries = entries;
+    }
+
+    /**
+     * load cache from the file, the cache is empty if file not exists or the key is changed
+     *
+     * @param file cache file
+     * @param key  cache key, such as application version and configuration hash
+     * @return a {@link ameba.scanner.ScanCache} object.
+     */
+    public static ScanCache load(File file, String key) {
+        Map<String, Entry> entries = Maps.newHashMap();
+        if (file.isFile()) {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), Charsets.UTF_8)) {
+                if (HEADER.equals(reader.readLine())
+                        && (KEY_PREFIX + key).equals(reader.readLine())) {
+                    Entry entry = null;
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isEmpty()) continue;
+                        if (line.startsWith(ROOT_PREFIX)) {
+                            String[] parts = line.substring(ROOT_PREFIX.length()).split(" ", 2);
+                            entry = new Entry(parts[0], Lists.newArrayList());
+                            entries.put(parts[1], entry);
+                        } else if (entry != null) {
+                            entry.classes.add(line);
+                        }
+                    }
+                } else {
+                    logger.debug("scan cache key changed, drop it");
+                }
+            } catch (IOException | ArrayIndexOutOfBoundsException e) {
+                logger.warn("read scan cache has error, drop it", e);
+                entries.clear();
+            }
+        }
+        return new ScanCache(file, key, entries);
+    }
+
+    /**
+     * fingerprint of class path root
+     *
+     * @param root root url
+     * @return fingerprint, null if the root can't fingerprint
+     */
+    public static String fingerprint(URL root) {
+        try {
+            String protocol = root.getProtocol();
+            if ("file".equals(protocol)) {
+                Path dir = new File(root.toURI()).toPath();
+                if (!Files.isDirectory(dir)) return null;
+                Hasher hasher = Hashing.murmur3_128().newHasher();
+                try (Stream<Path> paths = Files.walk(dir)) {
+                    paths.sorted().forEach(path -> {
+                        try {
+                            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                            hasher.putString(dir.relativize(path).toString(), Charsets.UTF_8)
+                                    .putLong(attrs.size())
+                                    .putLong(attrs.lastModifiedTime().toMillis());
+                        } catch (IOException e) {
+                            // deleted when walking, the hash is changed anyway
+                            hasher.putInt(-1);
+                        }
+                    });
+                }
+                return "dir:" + hasher.hash();
+            } else if ("jar".equals(protocol)) {
+                String spec = root.getPath();
+                int index = spec.indexOf("!/");
+                if (index == -1 || spec.indexOf("!/", index + 2) != -1) return null;
+                URI jar = new URI(spec.substring(0, index));
+                if (!"file".equals(jar.getScheme())) return null;
+                File jarFile = new File(jar);
+                if (!jarFile.isFile()) return null;
+                return "jar:" + jarFile.length() + "-" + jarFile.lastModified();
+            }
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            logger.debug("fingerprint " + root + " has error", e);
+        }
+        return null;
+    }
+
+    /**
+     * accepted classes of the root if the fingerprint is not changed
+     *
+     * @param root        root url
+     * @param fingerprint current fingerprint
+     * @return accepted class names, null if not cached or changed
+     */
+    public List<String> get(String root, String fingerprint) {
+        Entry entry = entries.get(root);
+        if (entry == null || fingerprint == null || !entry.fingerprint.equals(fingerprint)) {
+            return null;
+        }
+        return Collections.unmodifiableList(entry.classes);
+    }
+
+    /**
+     * update the accepted classes of the root
+     *
+     * @param root        root url
+     * @param fingerprint current fingerprint
+     * @param classes     accepted class names
+     */
+    public void put(String root, String fingerprint, List<String> classes) {
+        updated.put(root, new Entry(fingerprint, Lists.newArrayList(classes)));
+    }
+
+    /**
+     * write roots put by the latest scan to the file, roots not scanned are dropped
+     */
+    public void save() {
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            FileUtils.forceMkdir(file.getAbsoluteFile().getParentFile());
+            try (Writer writer = Files.newBufferedWriter(tmp.toPath(), Charsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.write('\n');
+                writer.write(KEY_PREFIX + key);
+                writer.write('\n');
+                for (Map.Entry<String, Entry> root : new TreeMap<>(updated).entrySet()) {
+                    writer.write(ROOT_PREFIX + root.getValue().fingerprint + " " + root.getKey());
+                    writer.write('\n');
+                    for (String className : root.getValue().classes) {
+                        writer.write(className);
+                        writer.write('\n');
+                    }
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("write scan cache has error", e);
+            FileUtils.deleteQuietly(tmp);
+        }
+    }
+
+    private static class Entry {
+        final String fingerprint;
+        final List<String> classes;
+
+        Entry(String fingerprint, List<String> classes) {
+            this.fingerprint = fingerprint;
+            this.classes = classes;
+        }
+    }
+}
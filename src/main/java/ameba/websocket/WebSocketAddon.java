@@ -2,6 +2,7 @@ package ameba.websocket;
 
 import ameba.core.Addon;
 import ameba.core.Application;
+import ameba.core.Provides;
 import ameba.i18n.Messages;
 import ameba.scanner.ClassFoundEvent;
 import ameba.websocket.internal.DefaultServerEndpointConfig;
@@ -31,6 +32,7 @@ import java.util.List;
  *
  * @author icode
  */
+@Provides("webSocket")
 public class WebSocketAddon extends Addon {
     /**
      * Constant <code>WEB_SOCKET_ENABLED_CONF="websocket.enabled"</code>
@@ -122,7 +124,7 @@ public class WebSocketAddon extends Addon {
     public void setup(final Application application) {
         endpointClasses.clear();
         subscribeSystemEvent(ClassFoundEvent.class, event -> event.accept(info -> {
-            if (info.accpet(ctClass -> ctClass.hasAnnotation(WebSocket.class))) {
+            if (info.accept(metadata -> metadata.hasAnnotation(WebSocket.class))) {
                 endpointClasses.add(info.toClass());
                 return true;
             }
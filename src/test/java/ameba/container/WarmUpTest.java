@@ -0,0 +1,61 @@
+package ameba.container;
+
+import com.google.common.collect.Maps;
+import junit.framework.Assert;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.Test;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author icode
+ */
+public class WarmUpTest {
+
+    @Test
+    public void run() {
+        WarmUpResource.GETS.set(0);
+        WarmUpResource.POSTS.set(0);
+        ApplicationHandler handler = new ApplicationHandler(new ResourceConfig(WarmUpResource.class));
+
+        Map<String, Object> config = Maps.newLinkedHashMap();
+        config.put("warmup.iterations", "20");
+        config.put("warmup.request.get", "GET /warmup");
+        config.put("warmup.request.get.header.X-Warmup", "yes");
+        config.put("warmup.request.post", "POST /warmup");
+        config.put("warmup.request.post.header.Content-Type", "text/plain");
+        config.put("warmup.request.post.body", "warmup");
+        WarmUp.run(config, handler);
+
+        Assert.assertEquals(20, WarmUpResource.GETS.get());
+        Assert.assertEquals(20, WarmUpResource.POSTS.get());
+    }
+
+    @Path("warmup")
+    public static class WarmUpResource {
+        static final AtomicInteger GETS = new AtomicInteger();
+        static final AtomicInteger POSTS = new AtomicInteger();
+
+        @GET
+        public String get(@HeaderParam("X-Warmup") String header) {
+            if ("yes".equals(header)) {
+                GETS.incrementAndGet();
+            }
+            return "ok";
+        }
+
+        @POST
+        public String post(String body) {
+            if ("warmup".equals(body)) {
+                POSTS.incrementAndGet();
+            }
+            return body;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ameba.core;
+
+import com.google.common.collect.Lists;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author icode
+ */
+public class DependencyGraphTest {
+
+    @Test
+    public void requirerBeforeProvider() {
+        List<Class<?>> nodes = Lists.newArrayList(Requirer.class, Provider.class, Plain.class);
+        DependencyGraph<Class<?>> graph = DependencyGraph.of(nodes, type -> type);
+
+        Assert.assertEquals(Lists.newArrayList(Provider.class, Requirer.class, Plain.class), graph.sorted());
+
+        List<Class<?>> ran = Collections.synchronizedList(Lists.newArrayList());
+        graph.run(ran::add, 4);
+        Assert.assertEquals(Lists.newArrayList(Provider.class, Requirer.class, Plain.class), ran);
+    }
+
+    @Test
+    public void priorityOrder() {
+        List<Class<?>> nodes = Lists.newArrayList(Provider.class, Plain.class, Requirer.class);
+        DependencyGraph<Class<?>> graph = DependencyGraph.of(nodes, type -> type);
+
+        Assert.assertEquals(nodes, graph.sorted());
+    }
+
+    @Requires("provider")
+    static class Requirer {
+    }
+
+    @Provides("provider")
+    static class Provider {
+    }
+
+    static class Plain {
+    }
+}
@@ -0,0 +1,105 @@
+package ameba.db.dsl;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author icode
+ */
+public class QueryExprParserTest {
+
+    private static final String[] EXPRESSIONS = {
+            "",
+            "a",
+            "a.b.c",
+            "name.eq('a!'b')",
+            "x.in(-1,+.5,0.,T,N,null,nil,true,false)",
+            "a(b(1)).c(2)",
+            "a(b).c",
+            "a(,b,)",
+            "a(b,,c)",
+            "x1.x2.w.not." +
+                    "  or(" +
+                    "    a_1_1." +
+                    "      b_1_2(" +
+                    "        j(h.n.m.b()m(1))" +
+                    "      )eq1(asd)dd.w.eq4(asd344)" +
+                    "    d_1_3." +
+                    "      in(" +
+                    "         1!2!3!4" +
+                    "      )x.eq(m.call)eq2(w.d.w.a.cal)" +
+                    "  )" +
+                    "xx.dd.dd." +
+                    "  ww(" +
+                    "    ddddd!'nil'!nil!12343!2ww!errf" +
+                    "  )l.w2.f.g.or"
+    };
+
+    private static final String[] FRAGMENTS = {
+            "a", "b.c", "eq", "(", ")", ".", "!", ",", "'x'", "'y!''", "'", "1", "-2", "+.5", "0.", "T", "N",
+            "nil", "true", " ", "in", "or("
+    };
+
+    private static String antlr(String expression) {
+        try {
+            return String.valueOf(QueryDSL.parse(QueryDSL.parser(QueryDSL.tokens(expression))));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // return true if the hand parser falls back to ANTLR
+    private static boolean assertSame(String expression) {
+        List<QueryExprMeta> metas = QueryExprParser.parse(expression);
+        String expected = antlr(expression);
+        if (metas == null) {
+            assertNull("fallback on the expression ANTLR accepts: " + expression, expected);
+            return true;
+        }
+        assertNotNull(expression, expected);
+        assertEquals(expression, expected, metas.toString());
+        return false;
+    }
+
+    @Test
+    public void parseTest() {
+        for (String expression : EXPRESSIONS) {
+            List<QueryExprMeta> metas = QueryExprParser.parse(expression);
+            assertNotNull(expression, metas);
+            assertEquals(expression, antlr(expression), metas.toString());
+        }
+    }
+
+    @Test
+    public void fallbackTest() {
+        for (String expression : new String[]{"a.b(", "q'", "a(,,b)", "a.(b)", "(a)", "a()b.", "+"}) {
+            assertNull(expression, QueryExprParser.parse(expression));
+        }
+    }
+
+    @Test
+    public void fuzzTest() {
+        Random random = new Random(20181018L);
+        int iterations = 20000;
+        int fallbacks = 0;
+        for (int i = 0; i < iterations; i++) {
+            StringBuilder expression = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                expression.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            if (assertSame(expression.toString())) {
+                fallbacks++;
+            }
+        }
+        // the fallbacks are all rejected by ANTLR, some inputs are parsed by the hand parser
+        assertTrue(fallbacks < iterations);
+    }
+}
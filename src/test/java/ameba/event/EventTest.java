@@ -1,10 +1,15 @@
 package ameba.event;
 
 import ameba.lib.Fibers;
+import junit.framework.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author icode
  */
@@ -64,6 +69,130 @@ public class EventTest {
         }
     }
 
+    @Test
+    public void publishToSuperType() {
+        EventBus<Event> eventBus = EventBus.create();
+        final int[] received = new int[3];
+        eventBus.subscribe(TestEvent.class, event -> received[0]++);
+        eventBus.subscribe(Event.class, event -> received[1]++);
+        eventBus.subscribe(ChildEvent.class, event -> received[2]++);
+
+        eventBus.publish(new ChildEvent("child"));
+        eventBus.publish(new TestEvent("parent"));
+        eventBus.publish(new TestEvent1("other"));
+
+        Assert.assertEquals(2, received[0]);
+        Assert.assertEquals(3, received[1]);
+        Assert.assertEquals(1, received[2]);
+
+        eventBus.unsubscribe(Event.class);
+        eventBus.publish(new ChildEvent("child"));
+
+        Assert.assertEquals(3, received[0]);
+        Assert.assertEquals(3, received[1]);
+        Assert.assertEquals(2, received[2]);
+    }
+
+    @Test
+    public void asyncPublishToSuperType() throws InterruptedException {
+        AsyncEventBus<Event> eventBus = AsyncEventBus.create();
+        final CountDownLatch latch = new CountDownLatch(2);
+        Listener<Event> listener = event -> latch.countDown();
+        eventBus.subscribe(Event.class, listener);
+
+        Assert.assertTrue(eventBus.hasSubscribers(ChildEvent.class));
+        eventBus.publish(new ChildEvent("child"));
+        eventBus.publish(new TestEvent1("other"));
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        eventBus.unsubscribe(Event.class, listener);
+        Assert.assertFalse(eventBus.hasSubscribers(ChildEvent.class));
+        eventBus.shutdown();
+    }
+
+    @Test
+    public void ringBufferPublish() throws InterruptedException {
+        RingBufferEventBus<Event> eventBus = new RingBufferEventBus<>(8, 4,
+                RingBufferEventBus.WaitStrategy.of("blocking"), RingBufferEventBus.OverflowPolicy.CALLER_RUNS);
+        final CountDownLatch latch = new CountDownLatch(100);
+        final AtomicInteger batches = new AtomicInteger();
+        final AtomicInteger maxBatchSize = new AtomicInteger();
+        eventBus.subscribe(TestEvent.class, (AsyncListener<TestEvent>) event -> latch.countDown());
+        eventBus.subscribe(TestEvent.class, (BatchListener<TestEvent>) events -> {
+            // the dispatcher catches errors, assert on the test thread
+            maxBatchSize.accumulateAndGet(events.size(), Math::max);
+            batches.incrementAndGet();
+        });
+
+        for (int i = 0; i < 100; i++) {
+            eventBus.publish(new TestEvent("message: " + i));
+        }
+
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(batches.get() > 0);
+        Assert.assertTrue(maxBatchSize.get() <= 4);
+        eventBus.shutdown();
+    }
+
+    @Test
+    public void ringBufferListenerError() throws InterruptedException {
+        RingBufferEventBus<Event> eventBus = new RingBufferEventBus<>(4, 2,
+                RingBufferEventBus.WaitStrategy.of("blocking"), RingBufferEventBus.OverflowPolicy.BLOCK);
+        final CountDownLatch latch = new CountDownLatch(20);
+        eventBus.subscribe(TestEvent.class, (AsyncListener<TestEvent>) event -> {
+            latch.countDown();
+            throw new AssertionError("listener error");
+        });
+        eventBus.subscribe(TestEvent.class, (BatchListener<TestEvent>) events -> {
+            throw new StackOverflowError();
+        });
+
+        eventBus.publish(new TestEvent("error"));
+        for (int i = 0; i < 19; i++) {
+            eventBus.publish(new TestEvent("message: " + i));
+        }
+
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        eventBus.shutdown();
+    }
+
+    @Test
+    public void executorOrderedPublish() throws InterruptedException {
+        ExecutorEventBus<Event> eventBus = new ExecutorEventBus<>(ExecutorEventBus.newForkJoinPool(4), true);
+        final CountDownLatch latch = new CountDownLatch(100);
+        final AtomicInteger last = new AtomicInteger(-1);
+        eventBus.subscribe(TestEvent.class, (AsyncListener<TestEvent>) event -> {
+            int i = Integer.parseInt(event.message);
+            Assert.assertTrue(last.compareAndSet(i - 1, i));
+            latch.countDown();
+        });
+
+        for (int i = 0; i < 100; i++) {
+            eventBus.publish(new TestEvent(String.valueOf(i)));
+        }
+
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(99, last.get());
+        eventBus.shutdown();
+    }
+
+    @Test
+    public void executorOrderedListenerError() throws InterruptedException {
+        ExecutorEventBus<Event> eventBus = new ExecutorEventBus<>(ExecutorEventBus.newForkJoinPool(2), true);
+        final CountDownLatch latch = new CountDownLatch(10);
+        eventBus.subscribe(TestEvent.class, (AsyncListener<TestEvent>) event -> {
+            latch.countDown();
+            throw new AssertionError("listener error");
+        });
+
+        for (int i = 0; i < 10; i++) {
+            eventBus.publish(new TestEvent(String.valueOf(i)));
+        }
+
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        eventBus.shutdown();
+    }
+
     public static class AnnotationSub {
         @Subscribe(TestEvent.class)
         private void doSomething(TestEvent e) {
@@ -113,6 +242,12 @@ public class EventTest {
         }
     }
 
+    public static class ChildEvent extends TestEvent {
+        public ChildEvent(String message) {
+            super(message);
+        }
+    }
+
     public static class TestEvent1 implements Event {
         public String message;
 